@@ -0,0 +1,31 @@
+package benchmark;
+
+import java.awt.Point;
+
+import model.BitBoard;
+import model.Board;
+
+/**
+ * Fixed positions shared by the benchmarks, so that results stay comparable
+ * across releases.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+final class BenchmarkPositions {
+
+    /** An early middlegame, white to move, with a double jump 26x10 available. */
+    static final String MIDDLEGAME_FEN = "W:W22,24,25,26,27,29,30,31,32:B1,2,3,4,5,8,12,13,15,23";
+
+    /** The white man that can jump in {@link #MIDDLEGAME_FEN} (square 26) */
+    static final Point JUMPER = Board.toPoint(25);
+
+    private BenchmarkPositions() {
+    }
+
+    static Board middlegame() {
+        Board board = new Board();
+        board.setFromBitBoard(BitBoard.fromFen(MIDDLEGAME_FEN));
+        return board;
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Board;
+import model.Piece;
+
+/**
+ * Throughput of the {@link Board} operations the game and the engine call
+ * on every move.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.middlegame();
+    }
+
+    @Benchmark
+    public Board cloneBoard() {
+        return board.clone();
+    }
+
+    @Benchmark
+    public List<Piece> getAllPieces() {
+        return board.getAllPieces(Piece.Color.WHITE);
+    }
+
+    @Benchmark
+    public boolean isGameOver() {
+        return board.isGameOver();
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Board;
+import model.ComputerPlayer;
+import model.Move;
+import model.Piece;
+
+/**
+ * Time for {@link ComputerPlayer#makeMove(Board, List)} to search the
+ * benchmark position to a fixed depth. The time budget is set high enough
+ * that the depth limit always ends the search, and the transposition table
+ * is cleared before each call so that every search starts cold.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComputerPlayerBenchmark {
+
+    private static final long UNLIMITED_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"4", "6", "8"})
+    public int depth;
+
+    private ComputerPlayer player;
+    private Board board;
+    private List<Move> validMoves;
+
+    @Setup
+    public void setUp() {
+        player = new ComputerPlayer("benchmark", Piece.Color.WHITE);
+        player.setMaxThinkingTimeMillis(UNLIMITED_MILLIS);
+        player.setMoveTimeoutMillis(UNLIMITED_MILLIS);
+        player.setMaxDepth(depth);
+        board = BenchmarkPositions.middlegame();
+        validMoves = board.getValidMoves(Piece.Color.WHITE);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        player.initialize();
+    }
+
+    @TearDown
+    public void tearDown() {
+        player.cleanup();
+    }
+
+    @Benchmark
+    public Move makeMove() {
+        return player.makeMove(board, validMoves);
+    }
+}
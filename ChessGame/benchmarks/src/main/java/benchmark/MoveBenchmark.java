@@ -0,0 +1,47 @@
+package benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Move;
+import model.Piece;
+
+/**
+ * Cost of creating {@link Move} objects. Run with {@code -prof gc} to see
+ * the bytes allocated per move.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    private final Piece mover = new Piece(Piece.Color.WHITE, 5, 2);
+    private final List<Piece> captured = Collections.singletonList(new Piece(Piece.Color.BLACK, 4, 3));
+
+    @Benchmark
+    public Move simpleMove() {
+        return new Move(5, 2, 4, 3, mover);
+    }
+
+    @Benchmark
+    public Move captureMove() {
+        return new Move(5, 2, 3, 4, mover, captured);
+    }
+}
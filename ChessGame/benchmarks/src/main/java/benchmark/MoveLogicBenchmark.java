@@ -0,0 +1,55 @@
+package benchmark;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import logic.MoveGenerator;
+import model.BitBoard;
+import model.Board;
+
+/**
+ * Throughput of the rule checks in {@link MoveGenerator}: the per-square
+ * jumps of a piece, and whether a side has any jump at all.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveLogicBenchmark {
+
+    private Board board;
+    private BitBoard bits;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.middlegame();
+        bits = BitBoard.fromFen(BenchmarkPositions.MIDDLEGAME_FEN);
+    }
+
+    @Benchmark
+    public List<Point> getSkips() {
+        return MoveGenerator.getSkips(board, BenchmarkPositions.JUMPER);
+    }
+
+    @Benchmark
+    public boolean canCapture() {
+        return MoveGenerator.canCapture(bits, bits.isWhiteToMove());
+    }
+}
@@ -0,0 +1,163 @@
+package engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The {@code EngineStats} class collects the {@link SearchStats} of every
+ * move an engine plays. Each move is written to the {@value #LOGGER_NAME}
+ * logger as one line of {@code key=value} pairs, and the numbers can be
+ * watched live over JMX (e.g. in JConsole) once the instance is registered
+ * with {@link #register(String)}.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class EngineStats implements EngineStatsMBean {
+
+    /** Name of the logger the per-move lines go to. */
+    public static final String LOGGER_NAME = "engine.search";
+
+    /** JMX domain the statistics are registered under. */
+    public static final String JMX_DOMAIN = "checkers";
+
+    private static final Logger LOG = Logger.getLogger(LOGGER_NAME);
+
+    private SearchStats last;
+    private long lastBudgetMillis;
+    private int maxDepth;
+    private int threads;
+    private long searchCount;
+    private long totalNodes;
+    private long totalMillis;
+
+    private ObjectName registeredName;
+
+    // ========== RECORDING ==========
+
+    /**
+     * Records the search that chose a move and logs it
+     *
+     * @param player       the engine's name, for the log.
+     * @param source       where the move came from: {@code search}, {@code ponder} or {@code book}.
+     * @param move         the move, in standard notation.
+     * @param stats        the search's counters, or null if nothing was searched.
+     * @param budgetMillis the time the engine was given.
+     * @param maxDepth     the engine's depth limit.
+     * @param threads      the engine's search threads.
+     */
+    public synchronized void record(String player, String source, String move, SearchStats stats,
+                                    long budgetMillis, int maxDepth, int threads) {
+        this.lastBudgetMillis = budgetMillis;
+        this.maxDepth = maxDepth;
+        this.threads = threads;
+        if (stats != null) {
+            last = stats;
+            searchCount++;
+            totalNodes += stats.getNodes();
+            totalMillis += stats.getMillis();
+        }
+        if (LOG.isLoggable(Level.INFO)) {
+            LOG.info(String.format("player=%s source=%s move=%s budget_ms=%d maxdepth=%d threads=%d%s",
+                    String.valueOf(player).replace(' ', '_'), source, move, budgetMillis, maxDepth, threads,
+                    stats == null ? "" : " " + stats.toLogLine()));
+        }
+    }
+
+    // ========== JMX ==========
+
+    /**
+     * Registers these statistics with the platform MBean server as
+     * {@code checkers:type=Engine,name=<name>}. A number is appended to the
+     * name if it is taken. Failure is logged, not thrown: the statistics are
+     * optional.
+     */
+    public synchronized void register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String base = name != null ? name : "engine";
+        for (int attempt = 1; registeredName == null && attempt <= 100; attempt++) {
+            try {
+                ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Engine,name="
+                        + ObjectName.quote(attempt == 1 ? base : base + " " + attempt));
+                server.registerMBean(this, objectName);
+                registeredName = objectName;
+            } catch (InstanceAlreadyExistsException e) {
+                // try the next name
+            } catch (JMException e) {
+                LOG.log(Level.WARNING, "Cannot register engine statistics for " + base, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the statistics from the MBean server
+     */
+    public synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Cannot unregister " + registeredName, e);
+        }
+        registeredName = null;
+    }
+
+    public synchronized ObjectName getRegisteredName() {
+        return registeredName;
+    }
+
+    // ========== ATTRIBUTES ==========
+
+    /** The counters of the last search, or null before the first one */
+    public synchronized SearchStats getLast() {
+        return last;
+    }
+
+    @Override public synchronized long getSearchCount() { return searchCount; }
+    @Override public synchronized long getTotalNodes() { return totalNodes; }
+    @Override public synchronized long getTotalMillis() { return totalMillis; }
+
+    @Override
+    public synchronized long getAverageNodesPerSecond() {
+        return totalMillis == 0 ? 0 : totalNodes * 1000 / totalMillis;
+    }
+
+    @Override public synchronized long getLastNodes() { return last == null ? 0 : last.getNodes(); }
+    @Override public synchronized long getLastQuiescenceNodes() { return last == null ? 0 : last.getQuiescenceNodes(); }
+    @Override public synchronized long getLastMillis() { return last == null ? 0 : last.getMillis(); }
+    @Override public synchronized long getLastNodesPerSecond() { return last == null ? 0 : last.getNodesPerSecond(); }
+    @Override public synchronized double getLastTableHitRate() { return last == null ? 0 : last.getTableHitRate(); }
+
+    @Override
+    public synchronized double getLastFirstMoveCutoffRate() {
+        return last == null ? 0 : last.getFirstMoveCutoffRate();
+    }
+
+    @Override
+    public synchronized double getLastEffectiveBranchingFactor() {
+        return last == null ? 0 : last.getEffectiveBranchingFactor();
+    }
+
+    @Override public synchronized int getLastCompletedDepth() { return last == null ? 0 : last.getCompletedDepth(); }
+    @Override public synchronized int getLastMaxPly() { return last == null ? 0 : last.getMaxPly(); }
+    @Override public synchronized long[] getLastIterationMillis() { return last == null ? new long[0] : last.getIterationMillis(); }
+    @Override public synchronized long getLastBudgetMillis() { return lastBudgetMillis; }
+    @Override public synchronized int getMaxDepth() { return maxDepth; }
+    @Override public synchronized int getThreads() { return threads; }
+
+    @Override
+    public synchronized void reset() {
+        searchCount = 0;
+        totalNodes = 0;
+        totalMillis = 0;
+    }
+}
@@ -0,0 +1,36 @@
+package engine;
+
+/**
+ * JMX view of an engine's search statistics (see {@link EngineStats}).
+ * Attributes named {@code Last...} describe the last search; the others
+ * add up every search since the last reset.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public interface EngineStatsMBean {
+
+    long getSearchCount();
+    long getTotalNodes();
+    long getTotalMillis();
+    long getAverageNodesPerSecond();
+
+    long getLastNodes();
+    long getLastQuiescenceNodes();
+    long getLastMillis();
+    long getLastNodesPerSecond();
+    double getLastTableHitRate();
+    double getLastFirstMoveCutoffRate();
+    double getLastEffectiveBranchingFactor();
+    int getLastCompletedDepth();
+    int getLastMaxPly();
+    long[] getLastIterationMillis();
+
+    /** Time budget of the last search, the difficulty setting. */
+    long getLastBudgetMillis();
+    int getMaxDepth();
+    int getThreads();
+
+    /** Clears the totals. */
+    void reset();
+}
@@ -0,0 +1,174 @@
+package engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * The {@code EvalWeights} class holds the weights of the {@link Evaluator}
+ * terms. They can be loaded from a properties file, so that the engine's
+ * strength can be tuned without a code change:
+ * <pre>
+ * man = 100
+ * king = 130
+ * backRank = 12
+ * ...
+ * </pre>
+ * Terms missing from the file keep their default weight.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class EvalWeights {
+
+    // ========== TERMS ==========
+
+    /** Each man on the board. */
+    public static final int MAN = 0;
+
+    /** Each king on the board. */
+    public static final int KING = 1;
+
+    /** Each man still guarding its own back row, which keeps enemy men from crowning. */
+    public static final int BACK_RANK = 2;
+
+    /** Each piece on one of the eight central squares. */
+    public static final int CENTRE = 3;
+
+    /** Each simple move the pieces could make. */
+    public static final int MOBILITY = 4;
+
+    /** Each man whose way to the king row is clear of pieces. */
+    public static final int RUNAWAY = 5;
+
+    /** Each row a man has advanced from its back row. */
+    public static final int TEMPO = 6;
+
+    /** Number of terms. */
+    public static final int COUNT = 7;
+
+    /** Names of the terms, as used in the weights file. */
+    public static final String[] NAMES = {"man", "king", "backRank", "centre", "mobility", "runaway", "tempo"};
+
+    private static final int[] DEFAULTS = {100, 130, 12, 6, 2, 40, 2};
+
+    /** System property naming the weights file the engine loads by default. */
+    public static final String FILE_PROPERTY = "checkers.weights";
+
+    /** File loaded by default from the working directory if it exists. */
+    public static final String DEFAULT_FILE = "eval-weights.properties";
+
+    private final int[] weights;
+
+    private EvalWeights(int[] weights) {
+        this.weights = weights;
+    }
+
+    // ========== CREATION ==========
+
+    /** Gets the built-in weights */
+    public static EvalWeights defaults() {
+        return new EvalWeights(DEFAULTS.clone());
+    }
+
+    /** Creates weights from values in term order (see {@link #NAMES}) */
+    public static EvalWeights of(int... values) {
+        if (values.length != COUNT) {
+            throw new IllegalArgumentException("Expected " + COUNT + " weights, got " + values.length);
+        }
+        return new EvalWeights(values.clone());
+    }
+
+    /**
+     * Loads the weights the engine uses by default: the file named by the
+     * {@value #FILE_PROPERTY} system property, else {@value #DEFAULT_FILE}
+     * in the working directory, else the built-in weights.
+     */
+    public static EvalWeights loadDefault() {
+        String name = System.getProperty(FILE_PROPERTY);
+        Path path = Paths.get(name != null ? name : DEFAULT_FILE);
+        if (name == null && !Files.exists(path)) {
+            return defaults();
+        }
+        try {
+            return load(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read evaluation weights from " + path, e);
+        }
+    }
+
+    /**
+     * Loads weights from a properties file
+     *
+     * @throws IllegalArgumentException if a weight is not an integer
+     */
+    public static EvalWeights load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        int[] values = DEFAULTS.clone();
+        for (int term = 0; term < COUNT; term++) {
+            String value = properties.getProperty(NAMES[term]);
+            if (value == null) {
+                continue;
+            }
+            try {
+                values[term] = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Weight '" + NAMES[term] + "' is not an integer: " + value, e);
+            }
+        }
+        return new EvalWeights(values);
+    }
+
+    /**
+     * Writes the weights to a properties file that {@link #load(Path)} reads
+     */
+    public void save(Path path, String comment) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (comment != null) {
+                writer.write("# " + comment + System.lineSeparator());
+            }
+            for (int term = 0; term < COUNT; term++) {
+                writer.write(NAMES[term] + " = " + weights[term] + System.lineSeparator());
+            }
+        }
+    }
+
+    // ========== ACCESS ==========
+
+    public int get(int term) {
+        return weights[term];
+    }
+
+    /** Gets a copy of the weights in term order */
+    public int[] toArray() {
+        return weights.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof EvalWeights && Arrays.equals(weights, ((EvalWeights) obj).weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EvalWeights[");
+        for (int term = 0; term < COUNT; term++) {
+            sb.append(term == 0 ? "" : ", ").append(NAMES[term]).append('=').append(weights[term]);
+        }
+        return sb.append(']').toString();
+    }
+}
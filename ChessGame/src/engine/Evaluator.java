@@ -0,0 +1,238 @@
+package engine;
+
+import java.util.Arrays;
+
+import logic.MoveTables;
+import model.BitBoard;
+import model.PackedMove;
+import model.Zobrist;
+
+/**
+ * The {@code Evaluator} class scores a position for the search. The score is
+ * a weighted sum of terms (see {@link EvalWeights}), counted for white minus
+ * black:
+ * - material, men and kings weighted separately
+ * - men guarding their own back row
+ * - pieces on the central squares
+ * - tempo: the rows each man has advanced
+ * - mobility: the simple moves the pieces could make
+ * - runaway men, whose way to the king row is clear
+ *
+ * The first four terms only depend on which piece stands on which square,
+ * so they are folded into one piece-square table and kept up to date
+ * incrementally: {@link #push(BitBoard, long)} adds the change a move makes
+ * and {@link #pop()} takes it back, mirroring make/unmake. Mobility and
+ * runaways depend on the whole board; they are counted with a few mask
+ * operations per piece when a leaf is evaluated.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class Evaluator {
+
+    // ========== SQUARE MASKS ==========
+
+    /** The eight central squares (rows and columns 2-5). */
+    public static final int CENTRE_SQUARES;
+
+    // Squares ahead of a man that must be empty for it to run to the king row, per colour
+    private static final int[] WHITE_RUNAWAY_CONES = new int[BitBoard.NUM_SQUARES];
+    private static final int[] BLACK_RUNAWAY_CONES = new int[BitBoard.NUM_SQUARES];
+
+    static {
+        int centre = 0;
+        for (int square = 0; square < BitBoard.NUM_SQUARES; square++) {
+            int row = BitBoard.rowOf(square);
+            int col = BitBoard.colOf(square);
+            if (row >= 2 && row <= 5 && col >= 2 && col <= 5) {
+                centre |= 1 << square;
+            }
+            for (int other = 0; other < BitBoard.NUM_SQUARES; other++) {
+                int rows = BitBoard.rowOf(other) - row;
+                int cols = Math.abs(BitBoard.colOf(other) - col);
+                if (rows < 0 && cols <= -rows) {
+                    WHITE_RUNAWAY_CONES[square] |= 1 << other;
+                } else if (rows > 0 && cols <= rows) {
+                    BLACK_RUNAWAY_CONES[square] |= 1 << other;
+                }
+            }
+        }
+        CENTRE_SQUARES = centre;
+    }
+
+    // ========== ATTRIBUTES ==========
+
+    private final EvalWeights weights;
+    private final int mobilityWeight;
+    private final int runawayWeight;
+
+    // Piece-square values from white's point of view, indexed by Zobrist piece kind
+    private final int[][] pieceSquare = new int[4][BitBoard.NUM_SQUARES];
+
+    // Piece-square sum of the current position and of every position before it
+    private int[] stack = new int[64];
+    private int size;
+
+    /**
+     * Creates an evaluator with the given weights
+     */
+    public Evaluator(EvalWeights weights) {
+        this.weights = weights;
+        this.mobilityWeight = weights.get(EvalWeights.MOBILITY);
+        this.runawayWeight = weights.get(EvalWeights.RUNAWAY);
+        for (int square = 0; square < BitBoard.NUM_SQUARES; square++) {
+            int bit = 1 << square;
+            int row = BitBoard.rowOf(square);
+            int centre = (CENTRE_SQUARES & bit) != 0 ? weights.get(EvalWeights.CENTRE) : 0;
+            pieceSquare[Zobrist.WHITE_MAN][square] = weights.get(EvalWeights.MAN) + centre
+                    + ((BitBoard.BLACK_KING_ROW & bit) != 0 ? weights.get(EvalWeights.BACK_RANK) : 0)
+                    + (7 - row) * weights.get(EvalWeights.TEMPO);
+            pieceSquare[Zobrist.BLACK_MAN][square] = -(weights.get(EvalWeights.MAN) + centre
+                    + ((BitBoard.WHITE_KING_ROW & bit) != 0 ? weights.get(EvalWeights.BACK_RANK) : 0)
+                    + row * weights.get(EvalWeights.TEMPO));
+            pieceSquare[Zobrist.WHITE_KING][square] = weights.get(EvalWeights.KING) + centre;
+            pieceSquare[Zobrist.BLACK_KING][square] = -(weights.get(EvalWeights.KING) + centre);
+        }
+    }
+
+    public EvalWeights getWeights() {
+        return weights;
+    }
+
+    // ========== INCREMENTAL UPDATE ==========
+
+    /**
+     * Starts from a new position: the piece-square sum is computed from
+     * scratch and the history is cleared
+     */
+    public void reset(BitBoard board) {
+        int sum = 0;
+        int kings = board.getKings();
+        sum += sumSquares(pieceSquare[Zobrist.WHITE_MAN], board.getWhite() & ~kings);
+        sum += sumSquares(pieceSquare[Zobrist.WHITE_KING], board.getWhite() & kings);
+        sum += sumSquares(pieceSquare[Zobrist.BLACK_MAN], board.getBlack() & ~kings);
+        sum += sumSquares(pieceSquare[Zobrist.BLACK_KING], board.getBlack() & kings);
+        size = 0;
+        stack[0] = sum;
+    }
+
+    /**
+     * Updates the piece-square sum for a move. Call with the board as it is
+     * before the move is made.
+     */
+    public void push(BitBoard board, long move) {
+        if (size + 1 == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        int from = PackedMove.from(move);
+        int kings = board.getKings();
+        boolean isWhite = board.isWhiteToMove();
+        int man = isWhite ? Zobrist.WHITE_MAN : Zobrist.BLACK_MAN;
+        int kind = (kings & (1 << from)) != 0 ? man + 1 : man;
+        int newKind = PackedMove.isPromotion(move) ? man + 1 : kind;
+
+        int delta = pieceSquare[newKind][PackedMove.to(move)] - pieceSquare[kind][from];
+        int captures = PackedMove.captures(move);
+        if (captures != 0) {
+            int enemyMan = isWhite ? Zobrist.BLACK_MAN : Zobrist.WHITE_MAN;
+            delta -= sumSquares(pieceSquare[enemyMan], captures & ~kings);
+            delta -= sumSquares(pieceSquare[enemyMan + 1], captures & kings);
+        }
+        stack[size + 1] = stack[size] + delta;
+        size++;
+    }
+
+    /**
+     * Takes back the last {@link #push(BitBoard, long)}
+     */
+    public void pop() {
+        size--;
+    }
+
+    private static int sumSquares(int[] values, int mask) {
+        int sum = 0;
+        while (mask != 0) {
+            sum += values[Integer.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return sum;
+    }
+
+    // ========== EVALUATION ==========
+
+    /**
+     * Evaluates the current position, which must be the one the last
+     * {@link #reset(BitBoard)} and pushes led to.
+     *
+     * @return the score from the side to move's point of view.
+     */
+    public int evaluate(BitBoard board) {
+        int white = board.getWhite();
+        int black = board.getBlack();
+        int kings = board.getKings();
+        int empty = board.getEmpty();
+        int score = stack[size]
+                + mobilityWeight * (mobility(white, kings, empty, true) - mobility(black, kings, empty, false))
+                + runawayWeight * (runaways(white & ~kings, empty, true) - runaways(black & ~kings, empty, false));
+        return board.isWhiteToMove() ? score : -score;
+    }
+
+    /**
+     * Counts every term for white minus black, so that the evaluation is the
+     * sum of each feature times its weight. Used by tools that fit the
+     * weights; the search itself uses {@link #evaluate(BitBoard)}.
+     *
+     * @param board    the position.
+     * @param features receives one count per term (see {@link EvalWeights}).
+     */
+    public static void features(BitBoard board, int[] features) {
+        int white = board.getWhite();
+        int black = board.getBlack();
+        int kings = board.getKings();
+        int empty = board.getEmpty();
+        int whiteMen = white & ~kings;
+        int blackMen = black & ~kings;
+        features[EvalWeights.MAN] = Integer.bitCount(whiteMen) - Integer.bitCount(blackMen);
+        features[EvalWeights.KING] = Integer.bitCount(white & kings) - Integer.bitCount(black & kings);
+        features[EvalWeights.BACK_RANK] = Integer.bitCount(whiteMen & BitBoard.BLACK_KING_ROW)
+                - Integer.bitCount(blackMen & BitBoard.WHITE_KING_ROW);
+        features[EvalWeights.CENTRE] = Integer.bitCount(white & CENTRE_SQUARES) - Integer.bitCount(black & CENTRE_SQUARES);
+        features[EvalWeights.MOBILITY] = mobility(white, kings, empty, true) - mobility(black, kings, empty, false);
+        features[EvalWeights.RUNAWAY] = runaways(whiteMen, empty, true) - runaways(blackMen, empty, false);
+        int tempo = 0;
+        for (int men = whiteMen; men != 0; men &= men - 1) {
+            tempo += 7 - BitBoard.rowOf(Integer.numberOfTrailingZeros(men));
+        }
+        for (int men = blackMen; men != 0; men &= men - 1) {
+            tempo -= BitBoard.rowOf(Integer.numberOfTrailingZeros(men));
+        }
+        features[EvalWeights.TEMPO] = tempo;
+    }
+
+    // Number of simple moves the pieces could make
+    private static int mobility(int pieces, int kings, int empty, boolean isWhite) {
+        int[] manSteps = isWhite ? MoveTables.WHITE_MAN_STEPS : MoveTables.BLACK_MAN_STEPS;
+        int count = 0;
+        while (pieces != 0) {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int steps = (kings & (1 << square)) != 0 ? MoveTables.KING_STEPS[square] : manSteps[square];
+            count += Integer.bitCount(steps & empty);
+        }
+        return count;
+    }
+
+    // Number of men with nothing between them and the king row
+    private static int runaways(int men, int empty, boolean isWhite) {
+        int[] cones = isWhite ? WHITE_RUNAWAY_CONES : BLACK_RUNAWAY_CONES;
+        int count = 0;
+        while (men != 0) {
+            int square = Integer.numberOfTrailingZeros(men);
+            men &= men - 1;
+            if ((cones[square] & ~empty) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,358 @@
+package engine;
+
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import logic.MoveGenerator;
+import model.BitBoard;
+import model.Board;
+import model.PackedMove;
+
+/**
+ * The {@code GameRecord} class is a finished game: the start position, the
+ * moves played and the result. Records are stored one game per line:
+ * <pre>
+ * 1-0 W:W21,...,32:B1,...,12 22-18 11-15 18x11 8x15 ...
+ * </pre>
+ * The result comes first ({@code 1-0} white won, {@code 0-1} black won,
+ * {@code 1/2-1/2} draw), then the start position in the notation of
+ * {@link BitBoard#fromFen(String)}, then the moves in standard square
+ * numbers. Multi-jumps list every square visited ({@code 26x17x10}).
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class GameRecord {
+
+    /** Scores of the results, from white's point of view. */
+    public static final double WHITE_WIN = 1.0;
+    public static final double DRAW = 0.5;
+    public static final double BLACK_WIN = 0.0;
+
+    private final String startFen;
+    private final long[] moves;
+    private final double result;
+
+    /**
+     * Creates a record
+     *
+     * @param startFen the start position.
+     * @param moves    the packed moves played from it.
+     * @param result   the result from white's point of view (1, 0.5 or 0).
+     */
+    public GameRecord(String startFen, long[] moves, double result) {
+        if (result != WHITE_WIN && result != DRAW && result != BLACK_WIN) {
+            throw new IllegalArgumentException("Result must be 1, 0.5 or 0: " + result);
+        }
+        this.startFen = startFen;
+        this.moves = moves.clone();
+        this.result = result;
+    }
+
+    public String getStartFen() { return startFen; }
+    public long[] getMoves() { return moves.clone(); }
+    public int getMoveCount() { return moves.length; }
+    public long getMove(int ply) { return moves[ply]; }
+    public double getResult() { return result; }
+
+    /** Gets a new board holding the start position */
+    public BitBoard startPosition() {
+        return BitBoard.fromFen(startFen);
+    }
+
+    // ========== TEXT FORM ==========
+
+    /**
+     * Formats the record as one line
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder(formatResult(result)).append(' ').append(startFen);
+        BitBoard board = startPosition();
+        for (long move : moves) {
+            sb.append(' ').append(formatMove(board, move));
+            board.makeMove(move);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses a line written by {@link #format()}
+     *
+     * @throws IllegalArgumentException if the line is malformed or a move is illegal
+     */
+    public static GameRecord parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("Expected a result and a position: " + line);
+        }
+        double result = parseResult(tokens[0]);
+        BitBoard board = BitBoard.fromFen(tokens[1]);
+        long[] moves = new long[tokens.length - 2];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = parseMove(board, tokens[i + 2]);
+            board.makeMove(moves[i]);
+        }
+        return new GameRecord(tokens[1], moves, result);
+    }
+
+    /**
+     * Reads every record of a file, skipping blank lines and lines starting
+     * with {@code #}
+     */
+    public static List<GameRecord> readAll(Path path) throws IOException {
+        List<GameRecord> games = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    games.add(parse(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return games;
+    }
+
+    public static String formatResult(double result) {
+        return result == WHITE_WIN ? "1-0" : result == BLACK_WIN ? "0-1" : "1/2-1/2";
+    }
+
+    public static double parseResult(String text) {
+        switch (text) {
+            case "1-0": return WHITE_WIN;
+            case "0-1": return BLACK_WIN;
+            case "1/2-1/2": return DRAW;
+            default: throw new IllegalArgumentException("Unknown result: " + text);
+        }
+    }
+
+    // ========== PDN ==========
+
+    /**
+     * Reads the games of a PDN file, e.g. a published game collection. Tag
+     * pairs other than {@code FEN} and {@code Result} are ignored, as are
+     * move numbers, comments, variations and annotations.
+     * <p>
+     * PDN follows the standard rules, where the side on squares 1-12 moves
+     * first; here that side is black and moves second. Each game is
+     * therefore mirrored: the colours are swapped and every square
+     * {@code s} becomes {@code 33 - s}, which gives the same game with
+     * white moving first. Results are read from the point of view of the
+     * side that moves first. Games without a result are skipped.
+     *
+     * @throws IllegalArgumentException if a game holds an illegal move
+     */
+    public static List<GameRecord> readPdn(Path path) throws IOException {
+        String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        List<GameRecord> games = new ArrayList<>();
+        String fen = null;
+        List<String> moveText = new ArrayList<>();
+        int depth = 0; // nesting of comments and variations being skipped
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (depth == 0 && c == '[') {
+                int end = text.indexOf(']', i);
+                if (end < 0) {
+                    break;
+                }
+                String tag = text.substring(i + 1, end).trim();
+                if (tag.startsWith("FEN")) {
+                    fen = tag.substring(3).trim().replace("\"", "");
+                }
+                i = end + 1;
+            } else if (c == '{' || c == '(') {
+                depth++;
+                i++;
+            } else if (c == '}' || c == ')') {
+                depth = Math.max(0, depth - 1);
+                i++;
+            } else if (depth > 0 || Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int end = i;
+                while (end < text.length() && !Character.isWhitespace(text.charAt(end))
+                        && "{([".indexOf(text.charAt(end)) < 0) {
+                    end++;
+                }
+                String token = text.substring(i, end);
+                i = end;
+                double result = pdnResult(token);
+                if (!Double.isNaN(result) || token.equals("*")) {
+                    if (!Double.isNaN(result)) {
+                        games.add(fromPdn(fen, moveText, result, games.size() + 1));
+                    }
+                    fen = null;
+                    moveText.clear();
+                } else {
+                    token = token.replaceAll("^\\d+\\.+", "").replaceAll("[!?]+$", "");
+                    if (!token.isEmpty()) {
+                        moveText.add(token);
+                    }
+                }
+            }
+        }
+        return games;
+    }
+
+    // The score for the first mover of a PDN result token, NaN if the token is no result
+    private static double pdnResult(String token) {
+        switch (token) {
+            case "1-0": case "2-0": return WHITE_WIN;
+            case "0-1": case "0-2": return BLACK_WIN;
+            case "1/2-1/2": case "1-1": return DRAW;
+            default: return Double.NaN;
+        }
+    }
+
+    // Builds a mirrored record from a PDN game; without a FEN tag it starts from the standard position
+    private static GameRecord fromPdn(String fen, List<String> moveText, double result, int number) {
+        BitBoard board = BitBoard.startPosition();
+        if (fen != null) {
+            BitBoard pdnStart = BitBoard.fromFen(expandRanges(fen));
+            board.set(Integer.reverse(pdnStart.getBlack()), Integer.reverse(pdnStart.getWhite()),
+                    Integer.reverse(pdnStart.getKings()), !pdnStart.isWhiteToMove());
+        }
+        String startFen = board.toFen();
+        long[] moves = new long[moveText.size()];
+        for (int m = 0; m < moves.length; m++) {
+            try {
+                moves[m] = parseMove(board, mirrorMove(moveText.get(m)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Game " + number + ", move " + (m + 1) + ": " + e.getMessage(), e);
+            }
+            board.makeMove(moves[m]);
+        }
+        return new GameRecord(startFen, moves, result);
+    }
+
+    // 22-18 becomes 11-15: square s is square 33 - s on the mirrored board
+    private static String mirrorMove(String move) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < move.length()) {
+            int end = i;
+            while (end < move.length() && Character.isDigit(move.charAt(end))) {
+                end++;
+            }
+            if (end == i) {
+                sb.append(move.charAt(i++));
+            } else {
+                sb.append(33 - Integer.parseInt(move.substring(i, end)));
+                i = end;
+            }
+        }
+        return sb.toString();
+    }
+
+    // PDN allows square ranges such as 1-12 or K29-32 in a FEN piece list
+    private static String expandRanges(String fen) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : fen.split("(?<=[,:])|(?=[,:])")) {
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                sb.append(part);
+                continue;
+            }
+            int digits = 0;
+            while (!Character.isDigit(part.charAt(digits))) {
+                digits++;
+            }
+            String colour = part.startsWith("W") || part.startsWith("B") ? part.substring(0, 1) : "";
+            String king = part.substring(colour.length(), digits);
+            int from = Integer.parseInt(part.substring(digits, dash));
+            int to = Integer.parseInt(part.substring(dash + 1));
+            sb.append(colour);
+            for (int square = from; square <= to; square++) {
+                sb.append(square == from ? "" : ",").append(king).append(square);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ========== MOVE NOTATION ==========
+
+    /**
+     * Formats a move in standard notation, e.g. {@code 22-18} or {@code 26x17x10}
+     *
+     * @param board the position before the move.
+     * @param move  the packed move.
+     */
+    public static String formatMove(BitBoard board, long move) {
+        if (!PackedMove.isCapture(move)) {
+            return PackedMove.toString(move);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Point p : MoveGenerator.getCapturePath(board, move)) {
+            sb.append(sb.length() == 0 ? "" : "x").append(Board.toIndex(p) + 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Finds the legal move written in standard notation. A jump may give
+     * only its first and last square unless two sequences share them.
+     *
+     * @param board the position before the move.
+     * @param text  the move, e.g. {@code 22-18}, {@code 26x10} or {@code 26x17x10}.
+     * @return the packed move.
+     * @throws IllegalArgumentException if no legal move or more than one matches.
+     */
+    public static long parseMove(BitBoard board, String text) {
+        String[] parts = text.split("[-x]");
+        int[] squares = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                squares[i] = Integer.parseInt(parts[i]) - 1;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad move: " + text, e);
+        }
+        if (squares.length < 2) {
+            throw new IllegalArgumentException("Bad move: " + text);
+        }
+
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        long found = PackedMove.NONE;
+        for (int i = 0; i < count; i++) {
+            long move = moves[i];
+            if (PackedMove.from(move) != squares[0] || PackedMove.to(move) != squares[squares.length - 1]) {
+                continue;
+            }
+            if (squares.length > 2 && !Arrays.equals(squares, pathOf(board, move))) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                throw new IllegalArgumentException("Ambiguous move " + text + " in " + board.toFen());
+            }
+            found = move;
+        }
+        if (found == PackedMove.NONE) {
+            throw new IllegalArgumentException("Illegal move " + text + " in " + board.toFen());
+        }
+        return found;
+    }
+
+    private static int[] pathOf(BitBoard board, long move) {
+        List<Point> path = MoveGenerator.getCapturePath(board, move);
+        int[] squares = new int[path.size()];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = Board.toIndex(path.get(i));
+        }
+        return squares;
+    }
+}
@@ -0,0 +1,180 @@
+package engine;
+
+import java.util.Arrays;
+
+import model.BitBoard;
+import model.PackedMove;
+
+/**
+ * The {@code MoveOrdering} class decides in which order the search tries
+ * the moves of a node. Alpha-beta prunes the most when the best move comes
+ * first, so moves are tried in this order:
+ * - the transposition table's best move
+ * - captures, the ones taking the most pieces first
+ * - promotions
+ * - the two killer moves of the ply (quiet moves that recently caused a cutoff at the same ply)
+ * - the other quiet moves, by their history score (how often they caused cutoffs anywhere in the tree)
+ *
+ * Everything works on primitive arrays. The table's move is tried before
+ * anything is scored; the other moves are scored into a per-ply buffer and
+ * picked one at a time with a partial selection sort, so nothing is sorted
+ * beyond the first move that causes a cutoff.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class MoveOrdering {
+
+    // ========== SCORES ==========
+
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int CAPTURE_SIZE_SCORE = 1 << 16;
+    private static final int PROMOTION_SCORE = 1 << 23;
+    private static final int KILLER_SCORE = 1 << 22;
+
+    // History scores are halved when one reaches this, so they stay below the killers
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    // ========== ATTRIBUTES ==========
+
+    private final long[][] killers;
+    private final int[][] history = new int[BitBoard.NUM_SQUARES][BitBoard.NUM_SQUARES];
+    private final int[][] scores;
+
+    /**
+     * Creates the ordering tables for a search of at most {@code maxPly} plies
+     */
+    public MoveOrdering(int maxPly) {
+        killers = new long[maxPly + 1][2];
+        scores = new int[maxPly + 1][BitBoard.MAX_MOVES];
+    }
+
+    /**
+     * Prepares for a new search: the killers are forgotten and the history
+     * is scaled down so that it adapts to the new position
+     */
+    public void newSearch() {
+        for (long[] plyKillers : killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+        for (int[] row : history) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 3;
+            }
+        }
+    }
+
+    // ========== ORDERING ==========
+
+    /**
+     * Swaps the table's best move to the front. It is searched before the
+     * other moves are scored, since it often causes a cutoff on its own.
+     *
+     * @param moves     the moves of the node.
+     * @param moveCount the number of moves.
+     * @param ttMove    the table's best move (origin and destination only), or 0.
+     * @return true if and only if the move was found.
+     */
+    public boolean ttMoveFirst(long[] moves, int moveCount, long ttMove) {
+        if (ttMove == PackedMove.NONE) {
+            return false;
+        }
+        for (int i = 0; i < moveCount; i++) {
+            if ((moves[i] & PackedMove.SQUARES_MASK) == ttMove) {
+                long move = moves[i];
+                moves[i] = moves[0];
+                moves[0] = move;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scores the moves of a node from {@code first} on. Call before picking
+     * them with {@link #pickNext(long[], int, int, int)}.
+     *
+     * @param moves     the moves of the node.
+     * @param first     the index of the first move to score.
+     * @param moveCount the number of moves.
+     * @param ply       the node's distance from the root.
+     */
+    public void score(long[] moves, int first, int moveCount, int ply) {
+        int[] plyScores = scores[ply];
+        long killer0 = killers[ply][0];
+        long killer1 = killers[ply][1];
+        for (int i = first; i < moveCount; i++) {
+            long move = moves[i];
+            int score;
+            if (PackedMove.isCapture(move)) {
+                score = CAPTURE_SCORE + PackedMove.captureCount(move) * CAPTURE_SIZE_SCORE
+                        + (PackedMove.isPromotion(move) ? 1 : 0);
+            } else if (PackedMove.isPromotion(move)) {
+                score = PROMOTION_SCORE;
+            } else if (move == killer0) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killer1) {
+                score = KILLER_SCORE;
+            } else {
+                score = history[PackedMove.from(move)][PackedMove.to(move)];
+            }
+            plyScores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best scored move among {@code index..moveCount-1} to
+     * {@code index} and returns it
+     */
+    public long pickNext(long[] moves, int index, int moveCount, int ply) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moveCount; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            long move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return moves[index];
+    }
+
+    // ========== LEARNING ==========
+
+    /**
+     * Records a move that caused a beta cutoff. Captures and promotions are
+     * already ordered first, so only quiet moves become killers and gain
+     * history.
+     *
+     * @param move  the move that caused the cutoff.
+     * @param ply   the node's distance from the root.
+     * @param depth the remaining depth of the node; deeper cutoffs count more.
+     */
+    public void onCutoff(long move, int ply, int depth) {
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+            return;
+        }
+        long[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int[] row = history[PackedMove.from(move)];
+        int to = PackedMove.to(move);
+        row[to] += depth * depth;
+        if (row[to] >= HISTORY_LIMIT) {
+            for (int[] scaled : history) {
+                for (int i = 0; i < scaled.length; i++) {
+                    scaled[i] >>= 1;
+                }
+            }
+        }
+    }
+}
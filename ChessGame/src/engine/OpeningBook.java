@@ -0,0 +1,187 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import model.BitBoard;
+import model.PackedMove;
+
+/**
+ * The {@code OpeningBook} class looks up the moves recorded for opening
+ * positions, so that the engine can play them without searching. Books are
+ * written by {@link OpeningBookBuilder}.
+ *
+ * A book file is a header followed by fixed-size entries sorted by
+ * position key ({@link BitBoard#getKey()}):
+ * <pre>
+ * header: int magic, int entry count
+ * entry:  long key, long packed move, int weight
+ * </pre>
+ * The file is memory-mapped and searched in place by binary search, so
+ * opening a book reads nothing into the heap. Lookups are thread safe.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class OpeningBook {
+
+    /** Marks a book file: "CKBK". */
+    public static final int MAGIC = 0x434B424B;
+
+    /** Size of the file header in bytes. */
+    public static final int HEADER_SIZE = 8;
+
+    /** Size of an entry in bytes. */
+    public static final int ENTRY_SIZE = 20;
+
+    /** System property naming the book {@link #loadDefault()} opens. */
+    public static final String FILE_PROPERTY = "checkers.book";
+
+    /** Book {@link #loadDefault()} opens when the property is not set. */
+    public static final String DEFAULT_FILE = "opening-book.bin";
+
+    private final MappedByteBuffer entries;
+    private final int count;
+
+    private OpeningBook(MappedByteBuffer entries, int count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    /**
+     * Opens a book file
+     *
+     * @throws IllegalArgumentException if the file is not a book.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        MappedByteBuffer buffer = Tablebase.map(path);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an opening book: " + path);
+        }
+        int count = buffer.getInt(4);
+        if ((long) count * ENTRY_SIZE + HEADER_SIZE != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated opening book: " + path);
+        }
+        return new OpeningBook(buffer, count);
+    }
+
+    /**
+     * Opens the book named by the {@value #FILE_PROPERTY} system property,
+     * or {@value #DEFAULT_FILE} in the working directory if it exists
+     *
+     * @return the book, or null if there is none.
+     */
+    public static OpeningBook loadDefault() {
+        String name = System.getProperty(FILE_PROPERTY);
+        Path path = Paths.get(name != null ? name : DEFAULT_FILE);
+        if (name == null && !Files.exists(path)) {
+            return null;
+        }
+        try {
+            return open(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read opening book from " + path, e);
+        }
+    }
+
+    public int getEntryCount() {
+        return count;
+    }
+
+    // ========== LOOKUP ==========
+
+    /**
+     * Picks a book move for the position, at random with probability
+     * proportional to its weight. Entries that are not legal moves in the
+     * position (a key collision) are ignored.
+     *
+     * @return the packed move, or {@link PackedMove#NONE} if the position is
+     * not in the book.
+     */
+    public long pickMove(BitBoard board, Random random) {
+        long key = board.getKey();
+        int first = firstEntry(key);
+        if (first == count || keyAt(first) != key) {
+            return PackedMove.NONE;
+        }
+
+        long[] legal = new long[BitBoard.MAX_MOVES];
+        int legalCount = board.generateMoves(legal);
+        long[] candidates = new long[legalCount];
+        int[] weights = new int[legalCount];
+        int found = 0;
+        long total = 0;
+        for (int i = first; i < count && keyAt(i) == key && found < legalCount; i++) {
+            long move = legalMove(moveAt(i), legal, legalCount);
+            int weight = weightAt(i);
+            if (move != PackedMove.NONE && weight > 0) {
+                candidates[found] = move;
+                weights[found++] = weight;
+                total += weight;
+            }
+        }
+        if (found == 0) {
+            return PackedMove.NONE;
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (int i = 0; i < found; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return candidates[i];
+            }
+        }
+        return candidates[found - 1];
+    }
+
+    /**
+     * Checks if the position has at least one book move
+     */
+    public boolean contains(BitBoard board) {
+        long key = board.getKey();
+        int first = firstEntry(key);
+        return first < count && keyAt(first) == key;
+    }
+
+    // The generated move the book move stands for, or NONE if it is not legal
+    private static long legalMove(long bookMove, long[] legal, int legalCount) {
+        for (int i = 0; i < legalCount; i++) {
+            if (PackedMove.sameMove(legal[i], bookMove)) {
+                return legal[i];
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    // Index of the first entry whose key is not below the given key (unsigned order)
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int entry) {
+        return entries.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+    }
+
+    private long moveAt(int entry) {
+        return entries.getLong(HEADER_SIZE + entry * ENTRY_SIZE + 8);
+    }
+
+    private int weightAt(int entry) {
+        return entries.getInt(HEADER_SIZE + entry * ENTRY_SIZE + 16);
+    }
+}
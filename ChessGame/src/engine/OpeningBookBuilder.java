@@ -0,0 +1,158 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.BitBoard;
+
+/**
+ * Command-line tool that builds an {@link OpeningBook} from recorded games:
+ * self-play games written by {@link Tournament} ({@code --out}) or PDN game
+ * collections.
+ *
+ * The first plies of every game are collected per position. A move's
+ * weight is the points it scored for the side that played it (2 per win,
+ * 1 per draw), so moves that only lost are left out, and positions reached
+ * in fewer than the minimum number of games are dropped as too rare to
+ * trust.
+ *
+ * Usage: {@code java engine.OpeningBookBuilder [options] games...}
+ * <pre>
+ * --plies N       plies of each game to collect (default 16)
+ * --min-games N   games a position must occur in (default 2)
+ * --out FILE      the book to write (default {@value OpeningBook#DEFAULT_FILE})
+ * </pre>
+ * Files ending in {@code .pdn} are read as PDN, all others as one
+ * {@link GameRecord} per line.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class OpeningBookBuilder {
+
+    private final int plies;
+    private final int minGames;
+
+    // Per position key: per packed move, {games, points}
+    private final Map<Long, Map<Long, int[]>> positions = new HashMap<>();
+
+    public OpeningBookBuilder(int plies, int minGames) {
+        this.plies = plies;
+        this.minGames = minGames;
+    }
+
+    /**
+     * Adds the opening moves of a game
+     */
+    public void add(GameRecord game) {
+        BitBoard board = game.startPosition();
+        int length = Math.min(plies, game.getMoveCount());
+        for (int ply = 0; ply < length; ply++) {
+            long move = game.getMove(ply);
+            double score = board.isWhiteToMove() ? game.getResult() : 1 - game.getResult();
+            int[] stats = positions.computeIfAbsent(board.getKey(), key -> new HashMap<>())
+                    .computeIfAbsent(move, key -> new int[2]);
+            stats[0]++;
+            stats[1] += (int) Math.round(score * 2);
+            board.makeMove(move);
+        }
+    }
+
+    /**
+     * Writes the book
+     *
+     * @return the number of entries written.
+     */
+    public int write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>(); // key, move, weight
+        for (Map.Entry<Long, Map<Long, int[]>> position : positions.entrySet()) {
+            int games = 0;
+            for (int[] stats : position.getValue().values()) {
+                games += stats[0];
+            }
+            if (games < minGames) {
+                continue;
+            }
+            for (Map.Entry<Long, int[]> move : position.getValue().entrySet()) {
+                if (move.getValue()[1] > 0) {
+                    entries.add(new long[] {position.getKey(), move.getKey(), move.getValue()[1]});
+                }
+            }
+        }
+        // The book is searched by key; the heaviest move of a position comes first
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + entries.size() * OpeningBook.ENTRY_SIZE);
+        buffer.putInt(OpeningBook.MAGIC).putInt(entries.size());
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putLong(entry[1]).putInt((int) entry[2]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return entries.size();
+    }
+
+    public int getPositionCount() {
+        return positions.size();
+    }
+
+    // ========== COMMAND LINE ==========
+
+    public static void main(String[] args) throws IOException {
+        int plies = 16;
+        int minGames = 2;
+        Path out = Paths.get(OpeningBook.DEFAULT_FILE);
+        List<Path> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--plies": plies = Integer.parseInt(value(args, ++i)); break;
+                    case "--min-games": minGames = Integer.parseInt(value(args, ++i)); break;
+                    case "--out": out = Paths.get(value(args, ++i)); break;
+                    default: inputs.add(Paths.get(args[i]));
+                }
+            }
+            if (inputs.isEmpty()) {
+                throw new IllegalArgumentException("No game files given");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java engine.OpeningBookBuilder [--plies N] [--min-games N] [--out FILE] games...");
+            System.exit(2);
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, minGames);
+        int games = 0;
+        for (Path input : inputs) {
+            List<GameRecord> records = input.toString().toLowerCase().endsWith(".pdn")
+                    ? GameRecord.readPdn(input) : GameRecord.readAll(input);
+            for (GameRecord record : records) {
+                builder.add(record);
+            }
+            games += records.size();
+        }
+        int entries = builder.write(out);
+        System.out.printf("%d games, %d positions, wrote %d entries to %s%n",
+                games, builder.getPositionCount(), entries, out);
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
@@ -0,0 +1,221 @@
+package engine;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import model.BitBoard;
+import model.DrawRules;
+
+/**
+ * The {@code ParallelSearch} class runs a Lazy-SMP search: every thread runs
+ * its own {@link Search} on the same position and all of them share one
+ * {@link TranspositionTable}. Helper threads fill the table with results
+ * the main search then finds instead of searching, and they start from
+ * different root moves so that they do not all walk the same subtree.
+ *
+ * The calling thread runs the main search. When it finishes, the helpers are
+ * stopped and the move of whichever search completed the deepest iteration
+ * is played.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helperPool;
+
+    // Result of the last search
+    private long nodes;
+    private int completedDepth;
+    private int bestScore;
+
+    /**
+     * Creates a search using the given number of threads (including the
+     * calling thread) over a shared table, with the default evaluation
+     * weights
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        this(threads, table, EvalWeights.loadDefault());
+    }
+
+    /**
+     * Creates a search using the given number of threads (including the
+     * calling thread) over a shared table
+     */
+    public ParallelSearch(int threads, TranspositionTable table, EvalWeights weights) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table, weights);
+            searches[i].setRootRotation(i);
+        }
+        this.helperPool = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Searches the position on all threads.
+     *
+     * @see Search#search(BitBoard, long, int)
+     */
+    public long search(BitBoard position, long timeBudgetMillis, int maxDepth) {
+        return search(position, timeBudgetMillis, maxDepth, () -> false);
+    }
+
+    /**
+     * Searches the position on all threads, unless it has been cancelled.
+     * A {@link #stop()} sent before the search starts is cleared by it, so a
+     * caller that may cancel before then passes its cancelled state here: it
+     * is read once the old stop requests are cleared, and a cancel made after
+     * that reaches the search through {@code stop()}.
+     *
+     * @param cancelled true once the caller no longer wants the move.
+     * @see Search#search(BitBoard, long, int)
+     */
+    public long search(BitBoard position, long timeBudgetMillis, int maxDepth, BooleanSupplier cancelled) {
+        for (Search search : searches) {
+            search.clearStop();
+        }
+        if (cancelled.getAsBoolean()) {
+            stop(); // ends within a few nodes; the caller ignores the move
+        }
+        table.newSearch();
+        Future<?>[] helpers = new Future<?>[searches.length - 1];
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            helpers[i - 1] = helperPool.submit(() -> helper.run(position, timeBudgetMillis, maxDepth));
+        }
+
+        Search main = searches[0];
+        long bestMove = main.run(position, timeBudgetMillis, maxDepth);
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+
+        nodes = main.getNodes();
+        completedDepth = main.getCompletedDepth();
+        bestScore = main.getBestScore();
+        for (int i = 0; i < helpers.length; i++) {
+            awaitHelper(helpers[i]);
+            Search helper = searches[i + 1];
+            nodes += helper.getNodes();
+            if (helper.getCompletedDepth() > completedDepth && helper.getBestMove() != 0) {
+                bestMove = helper.getBestMove();
+                completedDepth = helper.getCompletedDepth();
+                bestScore = helper.getBestScore();
+            }
+        }
+        return bestMove;
+    }
+
+    private static void awaitHelper(Future<?> helper) {
+        try {
+            helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Helper search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops a running search from another thread
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Releases the helper threads. The search cannot be used afterwards.
+     */
+    public void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Changes the evaluation weights of every thread. Must not be called
+     * during a search.
+     */
+    public void setWeights(EvalWeights weights) {
+        for (Search search : searches) {
+            search.setWeights(weights);
+        }
+    }
+
+    /**
+     * Sets the endgame tablebase of every thread, or null for none. Must
+     * not be called during a search.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (Search search : searches) {
+            search.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Sets the draw rules of every thread. Must not be called during a
+     * search.
+     */
+    public void setDrawRules(DrawRules drawRules) {
+        for (Search search : searches) {
+            search.setDrawRules(drawRules);
+        }
+    }
+
+    /**
+     * Switches a search refinement on or off on every thread. Must not be
+     * called during a search.
+     */
+    public void setFeature(Search.Feature feature, boolean enabled) {
+        for (Search search : searches) {
+            search.setFeature(feature, enabled);
+        }
+    }
+
+    /**
+     * Sets the listener told about the main thread's completed iterations,
+     * or null for none. Must not be called during a search.
+     */
+    public void setListener(SearchListener listener) {
+        searches[0].setListener(listener);
+    }
+
+    // ========== RESULTS ==========
+
+    public EvalWeights getWeights() { return searches[0].getWeights(); }
+    public Tablebase getTablebase() { return searches[0].getTablebase(); }
+    public DrawRules getDrawRules() { return searches[0].getDrawRules(); }
+    public int getThreadCount() { return searches.length; }
+    public TranspositionTable getTable() { return table; }
+
+    /**
+     * Gets the counters of the last search, summed over all threads
+     */
+    public SearchStats getStats() {
+        SearchStats stats = searches[0].getStats();
+        for (int i = 1; i < searches.length; i++) {
+            stats = stats.plus(searches[i].getStats());
+        }
+        return stats;
+    }
+
+    /** Nodes searched by all threads during the last search */
+    public long getNodes() { return nodes; }
+    public int getCompletedDepth() { return completedDepth; }
+    public int getBestScore() { return bestScore; }
+}
@@ -0,0 +1,181 @@
+package engine;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import logic.MoveGenerator;
+import model.BitBoard;
+import model.PackedMove;
+
+/**
+ * The {@code Ponderer} class thinks on the opponent's time. After the
+ * engine moves, it predicts the opponent's reply and searches the position
+ * that reply would lead to on a background thread, until the opponent
+ * actually moves:
+ * - if the opponent played the predicted move (a ponder hit), the search
+ *   already running is the one the engine needs; it gets the rest of the
+ *   move's time budget, or answers at once if it has used it up.
+ * - otherwise the background search is stopped. Its work is not lost: the
+ *   shared {@link TranspositionTable} keeps it for the real search.
+ *
+ * The predicted reply is the move the transposition table holds for the
+ * opponent's position, which the engine's own search usually left there;
+ * without one, a short search picks it.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class Ponderer {
+
+    // Time limit of a ponder search; in practice it runs until stopped
+    private static final long UNTIL_STOPPED_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // Time for picking the predicted reply when the table has none
+    private static final long PREDICTION_MILLIS = 50;
+
+    // How often a stop request is repeated while waiting for the search to end
+    private static final long STOP_POLL_MILLIS = 5;
+
+    private final ParallelSearch search;
+    private final ExecutorService ponderThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Future<Long> pending;
+    private volatile long expectedKey;  // position being pondered, 0 while the reply is being predicted
+    private volatile long ponderStart;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a ponderer that searches with the given search, which must not
+     * be used by anyone else while pondering
+     */
+    public Ponderer(ParallelSearch search) {
+        this.search = search;
+    }
+
+    // ========== PONDERING ==========
+
+    /**
+     * Starts pondering. Returns at once; the search runs in the background.
+     *
+     * @param position the position after the engine's move, opponent to move.
+     * @param maxDepth depth limit of the search.
+     */
+    public synchronized void start(BitBoard position, int maxDepth) {
+        cancel();
+        BitBoard board = new BitBoard();
+        board.copyFrom(position);
+        expectedKey = 0;
+        cancelled = false;
+        pending = ponderThread.submit(() -> {
+            long reply = predict(board, maxDepth);
+            if (reply == PackedMove.NONE || cancelled) {
+                return PackedMove.NONE;
+            }
+            board.makeMove(reply);
+            if (!board.hasMoves()) {
+                return PackedMove.NONE; // the reply would end the game
+            }
+            ponderStart = System.currentTimeMillis();
+            expectedKey = board.getKey();
+            return search.search(board, UNTIL_STOPPED_MILLIS, maxDepth);
+        });
+    }
+
+    /**
+     * Ends pondering now that the opponent has moved.
+     *
+     * @param position     the actual position, engine to move.
+     * @param budgetMillis the time the engine may spend on the move.
+     * @return the move found by pondering on a hit, or {@link PackedMove#NONE}
+     * if the opponent played another move (or nothing was pondered).
+     */
+    public synchronized long finish(BitBoard position, long budgetMillis) {
+        if (pending == null) {
+            return PackedMove.NONE;
+        }
+        Future<Long> ponder = pending;
+        pending = null;
+        if (expectedKey != position.getKey()) {
+            stopAndWait(ponder);
+            return PackedMove.NONE;
+        }
+        long remaining = budgetMillis - (System.currentTimeMillis() - ponderStart);
+        if (remaining > 0) {
+            try {
+                return ponder.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // out of time, take what the search has found so far
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ponder search failed", e.getCause());
+            }
+        }
+        return stopAndWait(ponder);
+    }
+
+    /**
+     * Stops pondering and waits until the search has ended, e.g. because the
+     * game was reset or a move was taken back
+     */
+    public synchronized void cancel() {
+        if (pending != null) {
+            stopAndWait(pending);
+            pending = null;
+        }
+    }
+
+    public synchronized boolean isPondering() {
+        return pending != null && !pending.isDone();
+    }
+
+    /**
+     * Stops pondering and releases the background thread
+     */
+    public synchronized void shutdown() {
+        cancel();
+        ponderThread.shutdownNow();
+    }
+
+    // The opponent's most likely reply: the table's move, else a short search's
+    private long predict(BitBoard board, int maxDepth) {
+        long entry = search.getTable().probe(board.getKey());
+        if (entry != 0) {
+            long tableMove = TranspositionTable.move(entry);
+            long[] moves = new long[BitBoard.MAX_MOVES];
+            int count = MoveGenerator.generateMoves(board, moves, 0);
+            for (int i = 0; i < count; i++) {
+                if ((moves[i] & PackedMove.SQUARES_MASK) == tableMove) { // the table keeps only the squares
+                    return moves[i];
+                }
+            }
+        }
+        return board.hasMoves() ? search.search(board, PREDICTION_MILLIS, maxDepth) : PackedMove.NONE;
+    }
+
+    // A search clears stop requests when it starts, so the request is repeated until it ends
+    private long stopAndWait(Future<Long> ponder) {
+        cancelled = true;
+        while (true) {
+            search.stop();
+            try {
+                return ponder.get(STOP_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // not stopped yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return PackedMove.NONE;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ponder search failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import model.BitBoard;
+
+/**
+ * Command-line tool that measures what each {@link Search.Feature} saves.
+ * A fixed suite of positions is searched to a fixed depth with plain
+ * alpha-beta, with each refinement alone, and with all of them, each time
+ * with a fresh table. For every configuration it prints the nodes searched,
+ * the nodes relative to plain alpha-beta, the time, and in how many
+ * positions the chosen move differs from plain alpha-beta's (the
+ * refinements are not exact, reductions in particular).
+ *
+ * Usage: {@code java engine.PruningBenchmark [depth] [hashMb]}
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class PruningBenchmark {
+
+    private static final int POSITIONS = 24;
+    private static final long SEED = 25;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int hashMb = args.length > 1 ? Integer.parseInt(args[1]) : TranspositionTable.DEFAULT_SIZE_MB;
+
+        BitBoard[] positions = createPositions();
+        System.out.printf("%d positions, depth %d, %d MB table%n", positions.length, depth, hashMb);
+        System.out.printf("%-26s %14s %9s %10s %12s%n", "features", "nodes", "relative", "time ms", "moves differ");
+
+        long[] baselineMoves = null;
+        long baselineNodes = 0;
+        for (Set<Search.Feature> features : configurations()) {
+            TranspositionTable table = new TranspositionTable(hashMb);
+            Search search = new Search(table);
+            for (Search.Feature feature : Search.Feature.values()) {
+                search.setFeature(feature, features.contains(feature));
+            }
+            long[] moves = new long[positions.length];
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < positions.length; i++) {
+                table.clear();
+                moves[i] = search.search(positions[i], Long.MAX_VALUE / 2, depth);
+                nodes += search.getNodes();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            if (baselineMoves == null) {
+                baselineMoves = moves;
+                baselineNodes = nodes;
+            }
+            int differ = 0;
+            for (int i = 0; i < positions.length; i++) {
+                if (moves[i] != baselineMoves[i]) {
+                    differ++;
+                }
+            }
+            System.out.printf("%-26s %14d %9.3f %10d %12d%n",
+                    describe(features), nodes, (double) nodes / baselineNodes, millis, differ);
+        }
+    }
+
+    // Plain alpha-beta first, then each feature alone, then all of them
+    private static List<Set<Search.Feature>> configurations() {
+        List<Set<Search.Feature>> configurations = new ArrayList<>();
+        configurations.add(EnumSet.noneOf(Search.Feature.class));
+        for (Search.Feature feature : Search.Feature.values()) {
+            configurations.add(EnumSet.of(feature));
+        }
+        configurations.add(EnumSet.allOf(Search.Feature.class));
+        return configurations;
+    }
+
+    private static String describe(Set<Search.Feature> features) {
+        if (features.isEmpty()) {
+            return "none";
+        }
+        if (features.size() == Search.Feature.values().length) {
+            return "all";
+        }
+        return features.toString().replaceAll("[\\[\\]]", "").toLowerCase();
+    }
+
+    // Openings and middlegames reached by seeded random play from the start position
+    private static BitBoard[] createPositions() {
+        BitBoard[] positions = new BitBoard[POSITIONS];
+        Random random = new Random(SEED);
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        for (int i = 0; i < POSITIONS; i++) {
+            BitBoard board;
+            do {
+                board = BitBoard.startPosition();
+                int plies = 4 + i % 4 * 6; // 4, 10, 16 or 22 plies in
+                for (int ply = 0; ply < plies && board.hasMoves(); ply++) {
+                    int count = board.generateMoves(moves);
+                    board.makeMove(moves[random.nextInt(count)]);
+                }
+            } while (!board.hasMoves());
+            positions[i] = new BitBoard(board.getWhite(), board.getBlack(), board.getKings(), board.isWhiteToMove());
+        }
+        return positions;
+    }
+}
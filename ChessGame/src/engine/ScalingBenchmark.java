@@ -0,0 +1,79 @@
+package engine;
+
+import java.util.Random;
+
+import model.BitBoard;
+
+/**
+ * Command-line tool that reports how {@link ParallelSearch} scales with the
+ * number of threads. Each thread count searches the same positions for a
+ * fixed time with a fresh table, and the tool prints nodes per second, the
+ * speedup over one thread and the average depth reached.
+ *
+ * Usage: {@code java engine.ScalingBenchmark [maxThreads] [millisPerPosition] [hashMb]}
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class ScalingBenchmark {
+
+    private static final int POSITIONS = 8;
+    private static final int OPENING_PLIES = 8;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : TranspositionTable.DEFAULT_SIZE_MB;
+
+        BitBoard[] positions = createPositions();
+        System.out.printf("%d positions, %d ms each, %d MB table%n", positions.length, millis, hashMb);
+        System.out.printf("%8s %14s %12s %8s %10s%n", "threads", "nodes", "nodes/sec", "speedup", "avg depth");
+
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads, new TranspositionTable(hashMb));
+            long nodes = 0;
+            long depthSum = 0;
+            long start = System.nanoTime();
+            for (BitBoard position : positions) {
+                search.search(position, millis, Search.MAX_PLY);
+                nodes += search.getNodes();
+                depthSum += search.getCompletedDepth();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            search.shutdown();
+
+            double nps = nodes / seconds;
+            if (threads == 1) {
+                baseline = nps;
+            }
+            System.out.printf("%8d %14d %12.0f %8.2f %10.1f%n",
+                    threads, nodes, nps, nps / baseline, (double) depthSum / positions.length);
+        }
+    }
+
+    // 1, 2, 4, ... up to and including maxThreads
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1;
+    }
+
+    // The start position plus early middlegames reached by seeded random play
+    private static BitBoard[] createPositions() {
+        BitBoard[] positions = new BitBoard[POSITIONS];
+        positions[0] = BitBoard.startPosition();
+        Random random = new Random(POSITIONS);
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        for (int i = 1; i < POSITIONS; i++) {
+            BitBoard board = BitBoard.startPosition();
+            for (int ply = 0; ply < OPENING_PLIES; ply++) {
+                int count = board.generateMoves(moves);
+                if (count == 0) {
+                    break;
+                }
+                board.makeMove(moves[random.nextInt(count)]);
+            }
+            positions[i] = new BitBoard(board.getWhite(), board.getBlack(), board.getKings(), board.isWhiteToMove());
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,589 @@
+package engine;
+
+import java.util.Arrays;
+
+import logic.MoveGenerator;
+import model.BitBoard;
+import model.DrawRules;
+import model.PackedMove;
+
+/**
+ * The {@code Search} class is the checkers engine's alpha-beta negamax
+ * search. It runs under iterative deepening against a wall-clock budget and
+ * always answers with the best move of the last fully completed depth.
+ *
+ * A search walks a single {@link BitBoard} with make/unmake and reuses one
+ * preallocated move buffer per ply, so no objects are created per node.
+ * Results are cached in a {@link TranspositionTable}, and moves are tried in
+ * the order chosen by {@link MoveOrdering}. With a {@link Tablebase} set,
+ * positions with few enough pieces are scored exactly from it instead of
+ * being searched. Positions that repeat one on the search path or in the
+ * game before it, or that break the no-progress rule, score as draws (see
+ * {@link DrawRules}).
+ *
+ * Three refinements of plain alpha-beta, each of which can be switched off
+ * (see {@link Feature}) to measure what it is worth ({@link PruningBenchmark}):
+ * - principal variation search: once a move has raised alpha, the others
+ *   only have to be shown worse, which a null window does more cheaply;
+ *   a move that is not worse is searched again with the full window
+ * - aspiration windows: each iteration starts with a narrow window around
+ *   the previous iteration's score, widened when the score falls outside
+ * - late move reductions: quiet moves late in the move order are searched
+ *   a ply shallower, and again at full depth if they raise alpha
+ * Instances are not thread safe; use one per thread ({@link ParallelSearch}
+ * runs several of them over a shared table).
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class Search {
+
+    // ========== CONSTANTS ==========
+
+    /** Score bound larger than any real score. */
+    public static final int INFINITY = 1_000_000;
+
+    /** Score of a won position; wins found sooner score higher. */
+    public static final int WIN = 100_000;
+
+    /** Maximum search depth in plies. */
+    public static final int MAX_PLY = 64;
+
+    // How often (in nodes) the clock is read
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    // Aspiration windows: first iteration that uses one, and its initial half width
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 25;
+
+    // Late move reductions: least remaining depth, and moves searched in full before reducing
+    private static final int REDUCTION_MIN_DEPTH = 3;
+    private static final int REDUCTION_FULL_MOVES = 3;
+
+    /**
+     * The search refinements that can be switched on and off
+     */
+    public enum Feature {
+        PRINCIPAL_VARIATION_SEARCH,
+        ASPIRATION_WINDOWS,
+        LATE_MOVE_REDUCTIONS
+    }
+
+    // ========== ATTRIBUTES ==========
+
+    private final BitBoard board = new BitBoard();
+    private final TranspositionTable table;
+    private final long[][] moveBuffers = new long[MAX_PLY + 1][BitBoard.MAX_MOVES];
+    private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+    private Evaluator evaluator;
+    private Tablebase tablebase;            // null when no endgame tablebase is used
+    private DrawRules drawRules = DrawRules.STANDARD;
+    private SearchListener listener;        // null when nobody follows the progress
+    private boolean principalVariationSearch = true;
+    private boolean aspirationWindows = true;
+    private boolean lateMoveReductions = true;
+
+    private long startMillis;
+    private long elapsedMillis;             // duration of the last search
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested; // set by other threads to end the search early
+    private long nodes;
+    private int rootRotation;               // Lazy-SMP helpers start from a different root move
+
+    // Counters of the current search (see SearchStats)
+    private long quiescenceNodes;
+    private long tableProbes;
+    private long tableHits;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private int maxPly;
+    private final long[] iterationMillis = new long[MAX_PLY];
+    private final long[] iterationNodes = new long[MAX_PLY];
+
+    // Result of the last completed iteration
+    private long bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    // ========== CONSTRUCTORS ==========
+
+    /**
+     * Creates a search with its own transposition table of the default size
+     */
+    public Search() {
+        this(new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    /**
+     * Creates a search that uses the given transposition table and the
+     * default evaluation weights (see {@link EvalWeights#loadDefault()})
+     */
+    public Search(TranspositionTable table) {
+        this(table, EvalWeights.loadDefault());
+    }
+
+    /**
+     * Creates a search that uses the given transposition table and
+     * evaluation weights
+     */
+    public Search(TranspositionTable table, EvalWeights weights) {
+        this.table = table;
+        this.evaluator = new Evaluator(weights);
+    }
+
+    // ========== SEARCH ==========
+
+    /**
+     * Searches the position for the side to move.
+     *
+     * @param position         the position to search; it is not modified.
+     * @param timeBudgetMillis wall-clock time the search may use.
+     * @param maxDepth         depth limit in plies.
+     * @return the best packed move, or 0 if the side to move has no moves.
+     */
+    public long search(BitBoard position, long timeBudgetMillis, int maxDepth) {
+        stopRequested = false;
+        table.newSearch();
+        return run(position, timeBudgetMillis, maxDepth);
+    }
+
+    // Runs a search without clearing a pending stop request, so a stop sent
+    // before a helper thread starts is not lost
+    long run(BitBoard position, long timeBudgetMillis, int maxDepth) {
+        long move = iterate(position, timeBudgetMillis, maxDepth);
+        elapsedMillis = System.currentTimeMillis() - startMillis;
+        return move;
+    }
+
+    private long iterate(BitBoard position, long timeBudgetMillis, int maxDepth) {
+        board.copyFrom(position);
+        evaluator.reset(board);
+        startMillis = System.currentTimeMillis();
+        deadline = startMillis + timeBudgetMillis;
+        aborted = false;
+        nodes = 0;
+        quiescenceNodes = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        maxPly = 0;
+        bestMove = 0;
+        bestScore = 0;
+        completedDepth = 0;
+        ordering.newSearch();
+
+        long[] rootMoves = moveBuffers[0];
+        int moveCount = MoveGenerator.generateMoves(board, rootMoves, 0);
+        if (moveCount == 0) {
+            return 0;
+        }
+        bestMove = rootMoves[rootRotation % moveCount];
+        if (moveCount == 1) {
+            return bestMove; // forced, nothing to think about
+        }
+
+        int depthLimit = Math.min(maxDepth, MAX_PLY);
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            long iterationStart = System.currentTimeMillis();
+            long nodesBefore = nodes;
+            int score = aspirationWindows && depth >= ASPIRATION_MIN_DEPTH && Math.abs(bestScore) < WIN - MAX_PLY
+                    ? aspirationSearch(rootMoves, moveCount, depth, bestScore)
+                    : searchRoot(rootMoves, moveCount, depth, -INFINITY, INFINITY);
+            if (aborted) {
+                break; // keep the result of the last completed depth
+            }
+            bestScore = score;
+            completedDepth = depth;
+            iterationMillis[depth - 1] = System.currentTimeMillis() - iterationStart;
+            iterationNodes[depth - 1] = nodes - nodesBefore;
+            if (listener != null) {
+                listener.onIteration(report());
+            }
+            if (Math.abs(score) >= WIN - MAX_PLY) {
+                break; // forced win or loss found, deeper search cannot change it
+            }
+        }
+        return bestMove;
+    }
+
+    // Searches the root in a window around the expected score, widening it until the score falls inside
+    private int aspirationSearch(long[] moves, int moveCount, int depth, int expected) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = expected - delta;
+        int beta = expected + delta;
+        while (true) {
+            int score = searchRoot(moves, moveCount, depth, alpha, beta);
+            if (aborted || (score > alpha && score < beta)) {
+                return score;
+            }
+            delta *= 2;
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITY);
+            } else {
+                beta = Math.min(score + delta, INFINITY);
+            }
+        }
+    }
+
+    // Fail-soft: a score at or below alpha is an upper bound (the best move is kept),
+    // one at or above beta a lower bound
+    private int searchRoot(long[] moves, int moveCount, int depth, int alpha, int beta) {
+        // Search the previous iteration's best move first
+        for (int i = 1; i < moveCount; i++) {
+            if (moves[i] == bestMove) {
+                moves[i] = moves[0];
+                moves[0] = bestMove;
+                break;
+            }
+        }
+
+        int best = -INFINITY;
+        long iterationBest = 0;
+        for (int i = 0; i < moveCount; i++) {
+            makeMove(moves[i]);
+            int score;
+            if (i == 0 || !principalVariationSearch) {
+                score = -negamax(1, depth - 1, -beta, -alpha);
+            } else {
+                score = -negamax(1, depth - 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -negamax(1, depth - 1, -beta, -alpha);
+                }
+            }
+            unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = moves[i];
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (iterationBest != 0) {
+            bestMove = iterationBest;
+        }
+        return best;
+    }
+
+    private int negamax(int ply, int depth, int alpha, int beta) {
+        if (drawRules.isDrawInSearch(board)) {
+            return 0;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        int tablebaseScore = probeTablebase(ply);
+        if (tablebaseScore != Tablebase.NO_SCORE) {
+            return tablebaseScore;
+        }
+
+        // Transposition table lookup
+        long key = board.getKey();
+        long entry = table.probe(key);
+        long ttMove = 0;
+        tableProbes++;
+        if (entry != 0) {
+            tableHits++;
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int ttScore = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+        }
+
+        long[] moves = moveBuffers[ply];
+        int moveCount = MoveGenerator.generateMoves(board, moves, 0);
+        if (moveCount == 0) {
+            return -WIN + ply; // side to move cannot move and loses
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+        // The table's move goes first, the rest are scored only if it does not cut off
+        int scoredFrom = ordering.ttMoveFirst(moves, moveCount, ttMove) ? 1 : 0;
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        long bestLocal = 0;
+        for (int i = 0; i < moveCount; i++) {
+            if (i == scoredFrom) {
+                ordering.score(moves, i, moveCount, ply);
+            }
+            long move = i < scoredFrom ? moves[i] : ordering.pickNext(moves, i, moveCount, ply);
+            makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -negamax(ply + 1, depth - 1, -beta, -alpha);
+            } else {
+                // Later moves are expected to be worse: prove it with a null window, and a ply
+                // less for quiet ones, then search again in full only if that fails
+                int reduction = lateMoveReductions && depth >= REDUCTION_MIN_DEPTH && i >= REDUCTION_FULL_MOVES
+                        && !PackedMove.isCapture(move) && !PackedMove.isPromotion(move) ? 1 : 0;
+                int searchBeta = principalVariationSearch ? alpha + 1 : beta;
+                score = -negamax(ply + 1, depth - 1 - reduction, -searchBeta, -alpha);
+                if (reduction > 0 && score > alpha) {
+                    score = -negamax(ply + 1, depth - 1, -searchBeta, -alpha);
+                }
+                if (searchBeta < beta && score > alpha && score < beta) {
+                    score = -negamax(ply + 1, depth - 1, -beta, -alpha);
+                }
+            }
+            unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestLocal = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (i == 0) {
+                            firstMoveCutoffs++;
+                        }
+                        ordering.onCutoff(move, ply, depth);
+                        break; // cutoff
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT
+                : TranspositionTable.BOUND_UPPER;
+        table.store(key, bound == TranspositionTable.BOUND_UPPER ? 0 : bestLocal, best, depth, bound, ply);
+        return best;
+    }
+
+    /**
+     * Quiescence search: past the nominal depth, forced captures are played
+     * out until the position is quiet, so that a position is never scored in
+     * the middle of an exchange. A quiet position stands pat on its static
+     * evaluation. While a capture is available the side to move must take,
+     * so there is no stand-pat option there and every capture is searched.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (countNode()) {
+            return 0;
+        }
+        quiescenceNodes++;
+        if (ply > maxPly) {
+            maxPly = ply;
+        }
+        int tablebaseScore = probeTablebase(ply);
+        if (tablebaseScore != Tablebase.NO_SCORE) {
+            return tablebaseScore;
+        }
+        long[] moves = moveBuffers[ply];
+        int moveCount = ply < MAX_PLY ? MoveGenerator.generateCaptures(board, moves, 0) : 0;
+        if (moveCount == 0) {
+            return board.hasMoves() ? evaluate() : -WIN + ply;
+        }
+
+        ordering.score(moves, 0, moveCount, ply);
+        int best = -INFINITY;
+        for (int i = 0; i < moveCount; i++) {
+            long move = ordering.pickNext(moves, i, moveCount, ply);
+            makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Plays a move on the board and updates the evaluation incrementally
+    private void makeMove(long move) {
+        evaluator.push(board, move);
+        board.makeMove(move);
+    }
+
+    private void unmakeMove() {
+        board.unmakeMove();
+        evaluator.pop();
+    }
+
+    // Counts a node and reads the clock every so often; true once the search must stop
+    private boolean countNode() {
+        long visited = ++nodes;
+        if ((visited % TIME_CHECK_INTERVAL) == 0 && (stopRequested
+                || (completedDepth > 0 && System.currentTimeMillis() >= deadline))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    // Exact score of the position from the tablebase, or Tablebase.NO_SCORE if it is not covered
+    private int probeTablebase(int ply) {
+        if (tablebase == null || Integer.bitCount(board.getOccupied()) > tablebase.getMaxPieces()) {
+            return Tablebase.NO_SCORE;
+        }
+        return tablebase.score(board, ply);
+    }
+
+    /**
+     * Static evaluation from the side to move's point of view
+     */
+    private int evaluate() {
+        return evaluator.evaluate(board);
+    }
+
+    /**
+     * Asks a running search to stop. It returns the best move of its last
+     * completed depth shortly afterwards. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Changes the evaluation weights. Must not be called during a search.
+     */
+    public void setWeights(EvalWeights weights) {
+        this.evaluator = new Evaluator(weights);
+    }
+
+    public EvalWeights getWeights() {
+        return evaluator.getWeights();
+    }
+
+    /**
+     * Sets the endgame tablebase probed below the root, or null for none.
+     * Must not be called during a search.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * Sets the rules that make a position a draw. Must not be called during
+     * a search.
+     */
+    public void setDrawRules(DrawRules drawRules) {
+        this.drawRules = drawRules;
+    }
+
+    public DrawRules getDrawRules() {
+        return drawRules;
+    }
+
+    /**
+     * Sets the listener told about each completed iteration, or null for
+     * none. Must not be called during a search.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Switches one of the search refinements on or off. All are on by
+     * default. Must not be called during a search.
+     */
+    public void setFeature(Feature feature, boolean enabled) {
+        switch (feature) {
+            case PRINCIPAL_VARIATION_SEARCH: principalVariationSearch = enabled; break;
+            case ASPIRATION_WINDOWS: aspirationWindows = enabled; break;
+            case LATE_MOVE_REDUCTIONS: lateMoveReductions = enabled; break;
+            default: throw new IllegalArgumentException("Unknown feature: " + feature);
+        }
+    }
+
+    public boolean isFeatureEnabled(Feature feature) {
+        switch (feature) {
+            case PRINCIPAL_VARIATION_SEARCH: return principalVariationSearch;
+            case ASPIRATION_WINDOWS: return aspirationWindows;
+            case LATE_MOVE_REDUCTIONS: return lateMoveReductions;
+            default: throw new IllegalArgumentException("Unknown feature: " + feature);
+        }
+    }
+
+    /**
+     * Makes the search try a different root move first, so that parallel
+     * helper searches spread over the tree instead of duplicating work
+     */
+    public void setRootRotation(int rootRotation) {
+        this.rootRotation = rootRotation;
+    }
+
+    // ========== PROGRESS ==========
+
+    // Reports the completed iteration; the line after the best move is read from the table
+    private SearchInfo report() {
+        BitBoard line = new BitBoard();
+        line.copyFrom(board);
+        long[] pv = new long[completedDepth];
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        StringBuilder text = new StringBuilder();
+        int length = 0;
+        long move = bestMove;
+        while (move != 0 && length < pv.length) {
+            text.append(length == 0 ? "" : " ").append(GameRecord.formatMove(line, move));
+            pv[length++] = move;
+            line.makeMove(move);
+            long entry = table.probe(line.getKey());
+            move = 0;
+            int count = entry != 0 ? MoveGenerator.generateMoves(line, moves, 0) : 0;
+            for (int i = 0; i < count; i++) {
+                // The table keeps only the squares, so match on those (as MoveOrdering.ttMoveFirst does)
+                if ((moves[i] & PackedMove.SQUARES_MASK) == TranspositionTable.move(entry)) {
+                    move = moves[i];
+                    break;
+                }
+            }
+        }
+        return new SearchInfo(completedDepth, bestScore, nodes, System.currentTimeMillis() - startMillis,
+                Arrays.copyOf(pv, length), text.toString());
+    }
+
+    // ========== RESULTS ==========
+
+    public long getBestMove() { return bestMove; }
+    public int getBestScore() { return bestScore; }
+    public int getCompletedDepth() { return completedDepth; }
+    public long getNodes() { return nodes; }
+
+    /**
+     * Gets the counters of the last search
+     */
+    public SearchStats getStats() {
+        return new SearchStats(nodes, quiescenceNodes, elapsedMillis, tableProbes,
+                tableHits, cutoffs, firstMoveCutoffs, completedDepth, maxPly,
+                Arrays.copyOf(iterationMillis, completedDepth), Arrays.copyOf(iterationNodes, completedDepth));
+    }
+}
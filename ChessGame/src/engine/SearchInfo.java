@@ -0,0 +1,56 @@
+package engine;
+
+/**
+ * The {@code SearchInfo} class is a progress report of a running search,
+ * sent to a {@link SearchListener} each time an iteration completes.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class SearchInfo {
+
+    private final int depth;
+    private final int score;
+    private final long nodes;
+    private final long elapsedMillis;
+    private final long[] principalVariation;
+    private final String principalVariationText;
+
+    /**
+     * Creates a report
+     *
+     * @param depth                  the depth just completed.
+     * @param score                  its score for the side to move.
+     * @param nodes                  nodes searched so far.
+     * @param elapsedMillis          time since the search started.
+     * @param principalVariation     the expected line of packed moves, best move first.
+     * @param principalVariationText the same line in standard notation.
+     */
+    public SearchInfo(int depth, int score, long nodes, long elapsedMillis,
+                      long[] principalVariation, String principalVariationText) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.principalVariation = principalVariation.clone();
+        this.principalVariationText = principalVariationText;
+    }
+
+    public int getDepth() { return depth; }
+    public int getScore() { return score; }
+    public long getNodes() { return nodes; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public long[] getPrincipalVariation() { return principalVariation.clone(); }
+    public String getPrincipalVariationText() { return principalVariationText; }
+
+    /** Nodes searched per second so far */
+    public long getNodesPerSecond() {
+        return elapsedMillis == 0 ? 0 : nodes * 1000 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d  score %+d  nodes %d  %d ms  pv %s",
+                depth, score, nodes, elapsedMillis, principalVariationText);
+    }
+}
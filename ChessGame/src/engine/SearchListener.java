@@ -0,0 +1,18 @@
+package engine;
+
+/**
+ * Receives progress reports from a running {@link Search}. Reports are sent
+ * on the searching thread, so a listener that updates a user interface must
+ * hand them over to the interface's own thread.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+    /**
+     * Called each time the search completes an iteration
+     */
+    void onIteration(SearchInfo info);
+}
@@ -0,0 +1,114 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code SearchStats} class holds the counters of one finished search,
+ * for spotting performance regressions:
+ * - nodes and quiescence nodes searched, and the speed
+ * - how often the transposition table had the position
+ * - how often a cutoff came from the first move tried, which measures the
+ *   move ordering (good ordering puts the refutation first)
+ * - the effective branching factor: how much more work each extra ply of
+ *   iterative deepening cost
+ * - the completed depth, the deepest ply reached, and the time and nodes
+ *   of each iteration
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class SearchStats {
+
+    private final long nodes;
+    private final long quiescenceNodes;
+    private final long millis;
+    private final long tableProbes;
+    private final long tableHits;
+    private final long cutoffs;
+    private final long firstMoveCutoffs;
+    private final int completedDepth;
+    private final int maxPly;
+    private final long[] iterationMillis; // index 0 is depth 1
+    private final long[] iterationNodes;
+
+    public SearchStats(long nodes, long quiescenceNodes, long millis, long tableProbes, long tableHits,
+                       long cutoffs, long firstMoveCutoffs, int completedDepth, int maxPly,
+                       long[] iterationMillis, long[] iterationNodes) {
+        this.nodes = nodes;
+        this.quiescenceNodes = quiescenceNodes;
+        this.millis = millis;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.completedDepth = completedDepth;
+        this.maxPly = maxPly;
+        this.iterationMillis = iterationMillis.clone();
+        this.iterationNodes = iterationNodes.clone();
+    }
+
+    /**
+     * Combines the counters of the threads of a parallel search. The depth
+     * and iterations are those of the main thread.
+     */
+    public SearchStats plus(SearchStats helper) {
+        return new SearchStats(nodes + helper.nodes, quiescenceNodes + helper.quiescenceNodes, millis,
+                tableProbes + helper.tableProbes, tableHits + helper.tableHits,
+                cutoffs + helper.cutoffs, firstMoveCutoffs + helper.firstMoveCutoffs,
+                completedDepth, Math.max(maxPly, helper.maxPly), iterationMillis, iterationNodes);
+    }
+
+    // ========== COUNTERS ==========
+
+    public long getNodes() { return nodes; }
+    public long getQuiescenceNodes() { return quiescenceNodes; }
+    public long getMillis() { return millis; }
+    public long getTableProbes() { return tableProbes; }
+    public long getTableHits() { return tableHits; }
+    public long getCutoffs() { return cutoffs; }
+    public long getFirstMoveCutoffs() { return firstMoveCutoffs; }
+    public int getCompletedDepth() { return completedDepth; }
+    public int getMaxPly() { return maxPly; }
+    public long[] getIterationMillis() { return iterationMillis.clone(); }
+    public long[] getIterationNodes() { return iterationNodes.clone(); }
+
+    // ========== DERIVED ==========
+
+    public long getNodesPerSecond() {
+        return millis == 0 ? 0 : nodes * 1000 / millis;
+    }
+
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Nodes of the last completed iteration divided by those of the one
+     * before, or 0 with fewer than two iterations
+     */
+    public double getEffectiveBranchingFactor() {
+        int last = iterationNodes.length - 1;
+        return last < 1 || iterationNodes[last - 1] == 0 ? 0 : (double) iterationNodes[last] / iterationNodes[last - 1];
+    }
+
+    /**
+     * Formats the counters as one line of {@code key=value} pairs, easy to
+     * grep and to parse
+     */
+    public String toLogLine() {
+        return String.format("depth=%d maxply=%d nodes=%d qnodes=%d time_ms=%d nps=%d tt_hit=%.3f"
+                        + " first_cutoff=%.3f ebf=%.2f iteration_ms=%s",
+                completedDepth, maxPly, nodes, quiescenceNodes, millis, getNodesPerSecond(), getTableHitRate(),
+                getFirstMoveCutoffRate(), getEffectiveBranchingFactor(),
+                Arrays.toString(iterationMillis).replaceAll("[\\[\\] ]", ""));
+    }
+
+    @Override
+    public String toString() {
+        return toLogLine();
+    }
+}
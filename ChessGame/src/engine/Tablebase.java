@@ -0,0 +1,254 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.BitBoard;
+
+/**
+ * The {@code Tablebase} class probes endgame tablebases written by
+ * {@link TablebaseGenerator}: for every position with few enough pieces
+ * they hold whether the side to move wins, loses or draws with perfect
+ * play, and in how many plies.
+ *
+ * Positions are grouped by material into slices (white men, white kings,
+ * black men, black kings), one file per slice. A file is an array of
+ * 16-bit entries indexed by {@link #index(int, int, int, boolean)}; each
+ * entry holds the result in its top two bits and the distance in plies in
+ * the rest. The files are memory-mapped, so opening them is cheap and the
+ * operating system pages in only the parts the search touches.
+ * Probing is thread safe.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class Tablebase {
+
+    // ========== ENTRY ENCODING ==========
+
+    /** Entry of a drawn position. */
+    public static final int DRAW = 0;
+
+    /** Result bits of a position the side to move wins. */
+    public static final int WIN = 0x4000;
+
+    /** Result bits of a position the side to move loses. */
+    public static final int LOSS = 0x8000;
+
+    /** Entry of an index that is not a legal position (or, while generating, not solved yet). */
+    public static final int INVALID = 0xC000;
+
+    /** Mask of the result bits of an entry. */
+    public static final int RESULT_MASK = 0xC000;
+
+    /** Mask of the distance bits of an entry. */
+    public static final int DISTANCE_MASK = 0x3FFF;
+
+    /** Returned by {@link #probe(BitBoard)} when the position is not covered. */
+    public static final int NOT_FOUND = -1;
+
+    /** Returned by {@link #score(BitBoard, int)} when the position is not covered. */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    /** Largest number of pieces supported; larger slices do not fit a mapped file. */
+    public static final int MAX_SUPPORTED_PIECES = 6;
+
+    // ========== INDEXING ==========
+
+    // BINOMIAL[n][k] = n choose k
+    private static final long[][] BINOMIAL = new long[BitBoard.NUM_SQUARES + 1][MAX_SUPPORTED_PIECES + 1];
+
+    static {
+        for (int n = 0; n <= BitBoard.NUM_SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_SUPPORTED_PIECES; k++) {
+                BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    private final int maxPieces;
+    private final MappedByteBuffer[] slices = new MappedByteBuffer[sliceCount()];
+
+    Tablebase(int maxPieces) {
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Opens the tablebase files in a directory. Slices that are missing are
+     * simply not probed.
+     *
+     * @param directory the directory the generator wrote to.
+     * @param maxPieces the largest number of pieces to probe.
+     */
+    public static Tablebase open(Path directory, int maxPieces) throws IOException {
+        if (maxPieces < 2 || maxPieces > MAX_SUPPORTED_PIECES) {
+            throw new IllegalArgumentException("Pieces must be between 2 and " + MAX_SUPPORTED_PIECES + ": " + maxPieces);
+        }
+        Tablebase tablebase = new Tablebase(maxPieces);
+        for (int total = 2; total <= maxPieces; total++) {
+            for (int[] material : materials(total)) {
+                Path file = directory.resolve(fileName(material));
+                if (Files.exists(file)) {
+                    tablebase.attach(material, map(file));
+                }
+            }
+        }
+        return tablebase;
+    }
+
+    static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Makes a slice available for probing
+    void attach(int[] material, MappedByteBuffer slice) {
+        slices[sliceId(material[0], material[1], material[2], material[3])] = slice;
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    // ========== PROBING ==========
+
+    /**
+     * Looks a position up.
+     *
+     * @return the entry (see {@link #WIN}, {@link #LOSS}, {@link #DRAW}), or
+     * {@link #NOT_FOUND} if the position has too many pieces or its slice
+     * was not generated.
+     */
+    public int probe(BitBoard board) {
+        int white = board.getWhite();
+        int black = board.getBlack();
+        if (Integer.bitCount(white | black) > maxPieces || white == 0 || black == 0) {
+            return NOT_FOUND;
+        }
+        int kings = board.getKings();
+        MappedByteBuffer slice = slices[sliceId(Integer.bitCount(white & ~kings), Integer.bitCount(white & kings),
+                Integer.bitCount(black & ~kings), Integer.bitCount(black & kings))];
+        if (slice == null) {
+            return NOT_FOUND;
+        }
+        long index = index(white, black, kings, board.isWhiteToMove());
+        int entry = slice.getChar((int) index * 2);
+        return entry == INVALID ? NOT_FOUND : entry;
+    }
+
+    /**
+     * Looks a position up and converts the entry to a search score: wins
+     * found sooner score higher, as in {@link Search}.
+     *
+     * @param board the position.
+     * @param ply   the position's distance from the search root.
+     * @return the exact score for the side to move, or {@link #NO_SCORE}.
+     */
+    public int score(BitBoard board, int ply) {
+        int entry = probe(board);
+        if (entry == NOT_FOUND) {
+            return NO_SCORE;
+        }
+        int distance = entry & DISTANCE_MASK;
+        switch (entry & RESULT_MASK) {
+            case WIN: return Search.WIN - ply - distance;
+            case LOSS: return -Search.WIN + ply + distance;
+            default: return 0;
+        }
+    }
+
+    // ========== SLICES ==========
+
+    /**
+     * Gets the index of a position within its slice. The men and kings of
+     * each colour are each ranked as a combination of squares, and the
+     * ranks are combined into one mixed-radix number with the side to move
+     * as the last digit.
+     */
+    public static long index(int white, int black, int kings, boolean whiteToMove) {
+        int whiteMen = white & ~kings;
+        int whiteKings = white & kings;
+        int blackMen = black & ~kings;
+        int blackKings = black & kings;
+        long index = rank(whiteMen);
+        index = index * BINOMIAL[BitBoard.NUM_SQUARES][Integer.bitCount(whiteKings)] + rank(whiteKings);
+        index = index * BINOMIAL[BitBoard.NUM_SQUARES][Integer.bitCount(blackMen)] + rank(blackMen);
+        index = index * BINOMIAL[BitBoard.NUM_SQUARES][Integer.bitCount(blackKings)] + rank(blackKings);
+        return index * 2 + (whiteToMove ? 0 : 1);
+    }
+
+    /** Number of entries in the slice with the given material */
+    public static long sliceSize(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+        return BINOMIAL[BitBoard.NUM_SQUARES][whiteMen] * BINOMIAL[BitBoard.NUM_SQUARES][whiteKings]
+                * BINOMIAL[BitBoard.NUM_SQUARES][blackMen] * BINOMIAL[BitBoard.NUM_SQUARES][blackKings] * 2;
+    }
+
+    // Colex rank of a set of squares: the sum of C(square, i + 1) over its squares in ascending order
+    private static long rank(int squares) {
+        long rank = 0;
+        int i = 1;
+        while (squares != 0) {
+            rank += BINOMIAL[Integer.numberOfTrailingZeros(squares)][i++];
+            squares &= squares - 1;
+        }
+        return rank;
+    }
+
+    /** Inverse of the ranking: the set of {@code count} squares with the given rank */
+    static int unrank(long rank, int count) {
+        int squares = 0;
+        int square = BitBoard.NUM_SQUARES - 1;
+        for (int i = count; i >= 1; i--) {
+            while (BINOMIAL[square][i] > rank) {
+                square--;
+            }
+            squares |= 1 << square;
+            rank -= BINOMIAL[square][i];
+            square--;
+        }
+        return squares;
+    }
+
+    static long binomial(int n, int k) {
+        return BINOMIAL[n][k];
+    }
+
+    /** The materials {white men, white kings, black men, black kings} with this many pieces, each side having one */
+    static List<int[]> materials(int total) {
+        List<int[]> materials = new ArrayList<>();
+        for (int wm = 0; wm <= total; wm++) {
+            for (int wk = 0; wm + wk <= total; wk++) {
+                for (int bm = 0; wm + wk + bm <= total; bm++) {
+                    int bk = total - wm - wk - bm;
+                    if (wm + wk > 0 && bm + bk > 0) {
+                        materials.add(new int[] {wm, wk, bm, bk});
+                    }
+                }
+            }
+        }
+        return materials;
+    }
+
+    static String fileName(int[] material) {
+        return "W" + material[0] + material[1] + "B" + material[2] + material[3] + ".tb";
+    }
+
+    private static int sliceCount() {
+        int base = MAX_SUPPORTED_PIECES + 1;
+        return base * base * base * base;
+    }
+
+    // Slot of the slice with the given piece counts
+    private static int sliceId(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+        int base = MAX_SUPPORTED_PIECES + 1;
+        return ((whiteMen * base + whiteKings) * base + blackMen) * base + blackKings;
+    }
+}
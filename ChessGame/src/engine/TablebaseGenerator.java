@@ -0,0 +1,324 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.BitBoard;
+import model.PackedMove;
+
+/**
+ * Command-line tool that solves every position with up to N pieces by
+ * retrograde analysis and writes the {@link Tablebase} files.
+ *
+ * Slices are solved from the fewest pieces up, and within a piece count
+ * from the fewest men up, so that every capture and promotion leads into a
+ * slice that is already on disk. Inside a slice the positions are solved
+ * backwards from the end of the game: positions without moves are lost in
+ * 0 plies, and pass {@code n} finds the positions won or lost in exactly
+ * {@code n} plies (a win needs one move to a position lost in
+ * {@code n - 1}; a loss needs every move to lead to a win, the longest in
+ * {@code n - 1}). When the passes stop finding anything, the positions left
+ * over are draws.
+ *
+ * Usage: {@code java engine.TablebaseGenerator [directory] [pieces] [threads]}
+ * <br>The defaults are the directory {@value #DEFAULT_DIRECTORY} and
+ * {@value #DEFAULT_PIECES} pieces. Each slice is held in memory while it is
+ * solved, two bytes per index; the largest 6-piece slices need about 1 GB
+ * of heap.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class TablebaseGenerator {
+
+    /** Directory the tablebase files are written to by default. */
+    public static final String DEFAULT_DIRECTORY = "tablebases";
+
+    /** Number of pieces solved by default. */
+    public static final int DEFAULT_PIECES = 4;
+
+    // Marks a legal position not solved yet (INVALID marks an index that is no position at all)
+    private static final char PENDING = (char) (Tablebase.INVALID | 1);
+
+    // Indices per task of a pass
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final Tablebase solved;
+    private final ExecutorService pool;
+
+    // The slice being solved
+    private int[] material;
+    private char[] values;
+
+    public TablebaseGenerator(Path directory, int maxPieces, int threads) {
+        this.directory = directory;
+        this.solved = new Tablebase(maxPieces);
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tablebase-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ========== GENERATION ==========
+
+    /**
+     * Solves and writes every slice up to the maximum number of pieces
+     */
+    public void generate() throws IOException {
+        Files.createDirectories(directory);
+        for (int total = 2; total <= solved.getMaxPieces(); total++) {
+            List<int[]> materials = Tablebase.materials(total);
+            materials.sort((a, b) -> (a[0] + a[2]) - (b[0] + b[2])); // promotions lead to fewer men
+            for (int[] slice : materials) {
+                long start = System.currentTimeMillis();
+                int passes = solve(slice);
+                Path file = directory.resolve(Tablebase.fileName(slice));
+                write(file);
+                solved.attach(slice, Tablebase.map(file));
+                System.out.printf("%s  %,d positions, %d passes, %.1f s%n", file.getFileName(), values.length,
+                        passes, (System.currentTimeMillis() - start) / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Solves one slice into {@link #values}
+     *
+     * @return the number of passes needed.
+     */
+    private int solve(int[] slice) {
+        long size = Tablebase.sliceSize(slice[0], slice[1], slice[2], slice[3]);
+        if (size > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Slice too large: " + Tablebase.fileName(slice));
+        }
+        material = slice;
+        values = new char[(int) size];
+
+        // Pass 0 marks the legal positions and the ones lost at once, and finds
+        // the longest result among the solved slices a move can lead into
+        int longestExit = 0;
+        for (int exit : runPass(0)) {
+            longestExit = Math.max(longestExit, exit);
+        }
+        int pass = 1;
+        while (true) {
+            boolean changed = false;
+            for (int found : runPass(pass)) {
+                changed |= found != 0;
+            }
+            if (!changed && pass > longestExit) {
+                break;
+            }
+            pass++;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == PENDING) {
+                values[i] = Tablebase.DRAW;
+            }
+        }
+        return pass;
+    }
+
+    // Runs one pass over the slice in parallel, one result per chunk
+    private List<Integer> runPass(int pass) {
+        List<Future<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < values.length; start += CHUNK_SIZE) {
+            int from = start;
+            int to = Math.min(values.length, start + CHUNK_SIZE);
+            chunks.add(pool.submit(() -> pass == 0 ? initialise(from, to) : solvePass(pass, from, to)));
+        }
+        List<Integer> results = new ArrayList<>(chunks.size());
+        for (Future<Integer> chunk : chunks) {
+            try {
+                results.add(chunk.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while generating", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Tablebase generation failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Pass 0 over a range of indices
+     *
+     * @return the longest distance of a solved position reached by a capture or promotion.
+     */
+    private int initialise(int from, int to) {
+        BitBoard board = new BitBoard();
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        int longest = 0;
+        for (int index = from; index < to; index++) {
+            if (!decode(index, board)) {
+                values[index] = (char) Tablebase.INVALID;
+                continue;
+            }
+            int moveCount = board.generateMoves(moves);
+            if (moveCount == 0) {
+                values[index] = (char) Tablebase.LOSS;
+                continue;
+            }
+            values[index] = PENDING;
+            for (int i = 0; i < moveCount; i++) {
+                if (leavesSlice(moves[i])) {
+                    board.makeMove(moves[i]);
+                    longest = Math.max(longest, exitValue(board) & Tablebase.DISTANCE_MASK);
+                    board.unmakeMove();
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Pass {@code n} over a range of indices: solves the positions won or
+     * lost in exactly {@code n} plies
+     *
+     * @return the number of positions solved.
+     */
+    private int solvePass(int pass, int from, int to) {
+        BitBoard board = new BitBoard();
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        int found = 0;
+        for (int index = from; index < to; index++) {
+            if (values[index] != PENDING) {
+                continue;
+            }
+            decode(index, board);
+            int moveCount = board.generateMoves(moves);
+            boolean win = false;
+            boolean allLose = true;     // every move leads to a win for the opponent
+            int longestLoss = 0;
+            for (int i = 0; i < moveCount && !win; i++) {
+                board.makeMove(moves[i]);
+                int child = leavesSlice(moves[i]) ? exitValue(board) : valueOf(board);
+                board.unmakeMove();
+                int result = child & Tablebase.RESULT_MASK;
+                int distance = child & Tablebase.DISTANCE_MASK;
+                if (result == Tablebase.LOSS && distance == pass - 1) {
+                    win = true;
+                } else if (result == Tablebase.WIN) {
+                    longestLoss = Math.max(longestLoss, distance);
+                } else {
+                    allLose = false;
+                }
+            }
+            if (win) {
+                values[index] = (char) (Tablebase.WIN | pass);
+                found++;
+            } else if (allLose && longestLoss == pass - 1) {
+                values[index] = (char) (Tablebase.LOSS | pass);
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Captures and promotions change the material; every other move stays in the slice
+    private static boolean leavesSlice(long move) {
+        return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+    }
+
+    // Value of a position in the slice being solved; PENDING reads as neither win nor loss
+    private int valueOf(BitBoard board) {
+        return values[(int) Tablebase.index(board.getWhite(), board.getBlack(), board.getKings(), board.isWhiteToMove())];
+    }
+
+    // Value of a position in a slice solved before; a side without pieces has lost
+    private int exitValue(BitBoard board) {
+        if (board.getMover() == 0) {
+            return Tablebase.LOSS;
+        }
+        int entry = solved.probe(board);
+        if (entry == Tablebase.NOT_FOUND) {
+            throw new IllegalStateException("Slice not solved yet for " + board.toFen());
+        }
+        return entry;
+    }
+
+    /**
+     * Sets the board to the position with the given index
+     *
+     * @return false if the index is not a legal position: pieces on the same
+     * square, or men standing on the row where they would have been crowned.
+     */
+    private boolean decode(int index, BitBoard board) {
+        boolean whiteToMove = (index & 1) == 0;
+        long rest = index >>> 1;
+        int[] groups = new int[4];
+        for (int g = 3; g >= 0; g--) {
+            long radix = Tablebase.binomial(BitBoard.NUM_SQUARES, material[g]);
+            groups[g] = Tablebase.unrank(rest % radix, material[g]);
+            rest /= radix;
+        }
+        int whiteMen = groups[0];
+        int whiteKings = groups[1];
+        int blackMen = groups[2];
+        int blackKings = groups[3];
+        if ((whiteMen & BitBoard.WHITE_KING_ROW) != 0 || (blackMen & BitBoard.BLACK_KING_ROW) != 0) {
+            return false;
+        }
+        int white = whiteMen | whiteKings;
+        int black = blackMen | blackKings;
+        int pieces = material[0] + material[1] + material[2] + material[3];
+        if (Integer.bitCount(white | black) != pieces) {
+            return false;
+        }
+        board.set(white, black, whiteKings | blackKings, whiteToMove);
+        return true;
+    }
+
+    // Writes the slice as big-endian 16-bit entries, the layout Tablebase maps
+    private void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE * 2);
+            for (int start = 0; start < values.length; start += CHUNK_SIZE) {
+                buffer.clear();
+                buffer.asCharBuffer().put(values, start, Math.min(CHUNK_SIZE, values.length - start));
+                buffer.limit(Math.min(CHUNK_SIZE, values.length - start) * 2);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ========== COMMAND LINE ==========
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : DEFAULT_DIRECTORY);
+        int pieces = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PIECES;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (pieces < 2 || pieces > Tablebase.MAX_SUPPORTED_PIECES) {
+            System.err.println("Usage: java engine.TablebaseGenerator [directory] [pieces 2-"
+                    + Tablebase.MAX_SUPPORTED_PIECES + "] [threads]");
+            System.exit(2);
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(directory, pieces, threads);
+        try {
+            generator.generate();
+        } finally {
+            generator.shutdown();
+        }
+    }
+}
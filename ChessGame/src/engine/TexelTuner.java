@@ -0,0 +1,225 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.BitBoard;
+
+/**
+ * Command-line tool that fits the {@link Evaluator} weights to game results
+ * (the "Texel" method). Every quiet position of the recorded games is
+ * labelled with its game's result, and the weights are adjusted until
+ * {@code sigmoid(evaluation)} predicts the results as well as possible.
+ *
+ * The evaluation is linear in the weights, so each position is reduced once
+ * to its feature counts (see {@link Evaluator#features(BitBoard, int[])})
+ * and the loss over all positions is a dot product per position, split over
+ * all cores.
+ *
+ * Usage: {@code java engine.TexelTuner games.txt [out.properties] [threads]}
+ * <br>The games file holds one {@link GameRecord} per line. The starting
+ * weights are the engine's default ones and the result is written to
+ * {@value EvalWeights#DEFAULT_FILE} unless another file is given.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class TexelTuner {
+
+    // Opening moves come from the book or random play, so they say little about the evaluation
+    private static final int SKIPPED_PLIES = 8;
+
+    // Positions per task when the loss is computed in parallel
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // Step sizes tried for each weight, coarse to fine
+    private static final int[] STEPS = {16, 4, 1};
+
+    // The man is worth 100 by definition, so its weight fixes the scale and is not tuned
+    private static final int FIXED_TERM = EvalWeights.MAN;
+
+    private final int[] features; // COUNT features per position, white minus black
+    private final double[] results; // game result per position, from white's point of view
+    private final int positions;
+    private final ExecutorService pool;
+    private final int threads;
+
+    /**
+     * Extracts the quiet positions of the given games
+     */
+    public TexelTuner(List<GameRecord> games, int threads) {
+        int capacity = 0;
+        for (GameRecord game : games) {
+            capacity += Math.max(0, game.getMoveCount() - SKIPPED_PLIES);
+        }
+        int[] featureBuffer = new int[capacity * EvalWeights.COUNT];
+        double[] resultBuffer = new double[capacity];
+        int[] position = new int[EvalWeights.COUNT];
+        long[] captures = new long[BitBoard.MAX_MOVES];
+
+        int count = 0;
+        for (GameRecord game : games) {
+            BitBoard board = game.startPosition();
+            for (int ply = 0; ply < game.getMoveCount(); ply++) {
+                // Positions in the middle of an exchange would teach the wrong thing
+                if (ply >= SKIPPED_PLIES && board.generateCaptures(captures) == 0) {
+                    Evaluator.features(board, position);
+                    System.arraycopy(position, 0, featureBuffer, count * EvalWeights.COUNT, EvalWeights.COUNT);
+                    resultBuffer[count++] = game.getResult();
+                }
+                board.makeMove(game.getMove(ply));
+            }
+        }
+        this.features = Arrays.copyOf(featureBuffer, count * EvalWeights.COUNT);
+        this.results = Arrays.copyOf(resultBuffer, count);
+        this.positions = count;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tuner-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPositionCount() {
+        return positions;
+    }
+
+    // ========== LOSS ==========
+
+    /**
+     * Mean squared difference between the game results and the predicted
+     * results {@code 1 / (1 + 10^(-k * eval / 400))}
+     */
+    public double loss(int[] weights, double k) {
+        int chunks = (positions + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        List<Future<Double>> partial = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int start = c * CHUNK_SIZE;
+            int end = Math.min(positions, start + CHUNK_SIZE);
+            partial.add(pool.submit(() -> squaredError(weights, k, start, end)));
+        }
+        double sum = 0;
+        for (Future<Double> chunk : partial) {
+            try {
+                sum += chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while tuning", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Loss computation failed", e.getCause());
+            }
+        }
+        return positions == 0 ? 0 : sum / positions;
+    }
+
+    private double squaredError(int[] weights, double k, int start, int end) {
+        double sum = 0;
+        for (int p = start; p < end; p++) {
+            int base = p * EvalWeights.COUNT;
+            int eval = 0;
+            for (int term = 0; term < EvalWeights.COUNT; term++) {
+                eval += weights[term] * features[base + term];
+            }
+            double predicted = 1.0 / (1.0 + Math.pow(10.0, -k * eval / 400.0));
+            double error = results[p] - predicted;
+            sum += error * error;
+        }
+        return sum;
+    }
+
+    // ========== OPTIMISATION ==========
+
+    /**
+     * Finds the sigmoid scale that best fits the starting weights, so that
+     * the tuning changes the weights and not just the scale
+     */
+    public double fitScale(int[] weights) {
+        double low = 0.01;
+        double high = 10;
+        for (int i = 0; i < 40; i++) { // ternary search, the loss is convex in k
+            double a = low + (high - low) / 3;
+            double b = high - (high - low) / 3;
+            if (loss(weights, a) < loss(weights, b)) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Tunes the weights by coordinate descent: each weight in turn is moved
+     * up or down by the current step while that lowers the loss, with the
+     * step shrinking once no weight improves
+     *
+     * @return the tuned weights.
+     */
+    public int[] tune(int[] start, double k) {
+        int[] weights = start.clone();
+        double best = loss(weights, k);
+        System.out.printf("%d positions, k = %.4f, initial loss %.6f%n", positions, k, best);
+        for (int step : STEPS) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int term = 0; term < EvalWeights.COUNT; term++) {
+                    if (term == FIXED_TERM) {
+                        continue;
+                    }
+                    for (int direction : new int[] {step, -step}) {
+                        weights[term] += direction;
+                        double candidate = loss(weights, k);
+                        if (candidate < best) {
+                            best = candidate;
+                            improved = true;
+                            break;
+                        }
+                        weights[term] -= direction;
+                    }
+                }
+                System.out.printf("step %2d  loss %.6f  %s%n", step, best, EvalWeights.of(weights));
+            }
+        }
+        return weights;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ========== COMMAND LINE ==========
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java engine.TexelTuner games.txt [out.properties] [threads]");
+            System.exit(2);
+        }
+        Path gamesFile = Paths.get(args[0]);
+        Path outFile = Paths.get(args.length > 1 ? args[1] : EvalWeights.DEFAULT_FILE);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<GameRecord> games = GameRecord.readAll(gamesFile);
+        TexelTuner tuner = new TexelTuner(games, threads);
+        System.out.printf("%d games, %d quiet positions, %d threads%n",
+                games.size(), tuner.getPositionCount(), tuner.threads);
+        try {
+            int[] start = EvalWeights.loadDefault().toArray();
+            double k = tuner.fitScale(start);
+            EvalWeights tuned = EvalWeights.of(tuner.tune(start, k));
+            tuned.save(outFile, "Tuned on " + games.size() + " games from " + gamesFile.getFileName());
+            System.out.println("Wrote " + outFile + ": " + tuned);
+        } finally {
+            tuner.shutdown();
+        }
+    }
+}
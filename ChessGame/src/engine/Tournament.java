@@ -0,0 +1,331 @@
+package engine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.BitBoard;
+import model.DrawRules;
+
+/**
+ * Headless command-line tool that plays engine-vs-engine games to check
+ * whether an engine change is actually stronger. Engine A and engine B play
+ * each opening twice, once with each colour, and many games run at once on
+ * a thread pool. At the end it prints A's wins, draws and losses, the Elo
+ * difference with a 95% error margin, and each engine's average depth and
+ * nodes per second.
+ *
+ * Usage: {@code java engine.Tournament [options]}
+ * <pre>
+ * --games N          number of games, rounded up to an even number (default 100)
+ * --concurrency N    games played at the same time (default: number of cores)
+ * --movetime MS      thinking time per move (default 100)
+ * --depth N          depth limit per move (default none)
+ * --hash MB          transposition table size per engine and game (default 4)
+ * --weights-a FILE   evaluation weights of engine A (default: the engine's defaults)
+ * --weights-b FILE   evaluation weights of engine B
+ * --without-a LIST   search features engine A plays without, e.g. late_move_reductions (see {@link Search.Feature})
+ * --without-b LIST   search features engine B plays without
+ * --openings FILE    start positions, one per line (default: random openings)
+ * --random-plies N   random moves played to make an opening (default 6)
+ * --seed N           seed for the random openings (default 1)
+ * --max-plies N      game length after which a game is drawn (default 300)
+ * --no-progress N    plies without a capture or man move that draw, 0 for none (default 80)
+ * --tablebases DIR   endgame tablebases both engines use (default none)
+ * --out FILE         write the games as {@link GameRecord} lines, e.g. for {@link TexelTuner}
+ * </pre>
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class Tournament {
+
+    // ========== SETTINGS ==========
+
+    private int games = 100;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    private long moveTimeMillis = 100;
+    private int maxDepth = Search.MAX_PLY;
+    private int hashMb = 4;
+    private EvalWeights weightsA = EvalWeights.loadDefault();
+    private EvalWeights weightsB = weightsA;
+    private final Set<Search.Feature> withoutA = EnumSet.noneOf(Search.Feature.class);
+    private final Set<Search.Feature> withoutB = EnumSet.noneOf(Search.Feature.class);
+    private Path openingsFile;
+    private int randomPlies = 6;
+    private long seed = 1;
+    private int maxPlies = 300;
+    private DrawRules drawRules = DrawRules.STANDARD;
+    private Path outFile;
+    private Tablebase tablebase;
+
+    /**
+     * The outcome of one game, from engine A's point of view
+     */
+    private static final class GameResult {
+        GameRecord record;
+        double scoreA;      // 1 win, 0.5 draw, 0 loss
+        long[] nodes = new long[2];     // per engine: A, B
+        long[] nanos = new long[2];
+        long[] depthSum = new long[2];
+        int[] searches = new int[2];
+    }
+
+    // ========== PLAYING ==========
+
+    /**
+     * Plays one game
+     *
+     * @param startFen   the opening position.
+     * @param aIsWhite   true if and only if engine A plays white.
+     */
+    private GameResult playGame(String startFen, boolean aIsWhite) {
+        Search[] engines = {
+            new Search(new TranspositionTable(hashMb), weightsA),
+            new Search(new TranspositionTable(hashMb), weightsB)
+        };
+        for (Search engine : engines) {
+            engine.setTablebase(tablebase);
+            engine.setDrawRules(drawRules);
+        }
+        for (Search.Feature feature : withoutA) {
+            engines[0].setFeature(feature, false);
+        }
+        for (Search.Feature feature : withoutB) {
+            engines[1].setFeature(feature, false);
+        }
+        GameResult result = new GameResult();
+        BitBoard board = BitBoard.fromFen(startFen);
+        long[] moves = new long[maxPlies];
+        double whiteScore = GameRecord.DRAW;
+        int ply = 0;
+        while (ply < maxPlies) {
+            if (!board.hasMoves()) {
+                whiteScore = board.isWhiteToMove() ? GameRecord.BLACK_WIN : GameRecord.WHITE_WIN;
+                break;
+            }
+            if (drawRules.isDraw(board)) {
+                break; // repetition or no progress
+            }
+            int engine = board.isWhiteToMove() == aIsWhite ? 0 : 1;
+            long start = System.nanoTime();
+            long move = engines[engine].search(board, moveTimeMillis, maxDepth);
+            result.nanos[engine] += System.nanoTime() - start;
+            result.nodes[engine] += engines[engine].getNodes();
+            result.depthSum[engine] += engines[engine].getCompletedDepth();
+            result.searches[engine]++;
+
+            moves[ply++] = move;
+            board.makeMove(move);
+        }
+        result.record = new GameRecord(startFen, Arrays.copyOf(moves, ply), whiteScore);
+        result.scoreA = aIsWhite ? whiteScore : 1 - whiteScore;
+        return result;
+    }
+
+    /**
+     * Plays the whole tournament and prints the results
+     */
+    public void run() throws IOException {
+        List<String> openings = openings((games + 1) / 2);
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Future<GameResult>> pending = new ArrayList<>();
+        for (String opening : openings) {
+            pending.add(pool.submit(() -> playGame(opening, true)));
+            pending.add(pool.submit(() -> playGame(opening, false)));
+        }
+        pool.shutdown();
+
+        System.out.printf("%d games, %d at a time, %d ms per move%n", pending.size(), concurrency, moveTimeMillis);
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        long[] nodes = new long[2];
+        long[] nanos = new long[2];
+        long[] depthSum = new long[2];
+        long[] searches = new long[2];
+        try (PrintWriter out = outFile == null ? null
+                : new PrintWriter(Files.newBufferedWriter(outFile, StandardCharsets.UTF_8))) {
+            for (int i = 0; i < pending.size(); i++) {
+                GameResult result = await(pending.get(i));
+                if (result.scoreA == 1) {
+                    wins++;
+                } else if (result.scoreA == 0) {
+                    losses++;
+                } else {
+                    draws++;
+                }
+                for (int e = 0; e < 2; e++) {
+                    nodes[e] += result.nodes[e];
+                    nanos[e] += result.nanos[e];
+                    depthSum[e] += result.depthSum[e];
+                    searches[e] += result.searches[e];
+                }
+                if (out != null) {
+                    out.println(result.record.format());
+                }
+                if ((i + 1) % 10 == 0 || i + 1 == pending.size()) {
+                    System.out.printf("%5d games  +%d =%d -%d  %s%n", i + 1, wins, draws, losses,
+                            formatElo(wins, draws, losses));
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.printf("Engine A vs B: +%d =%d -%d, Elo %s%n", wins, draws, losses, formatElo(wins, draws, losses));
+        for (int e = 0; e < 2; e++) {
+            System.out.printf("Engine %c: avg depth %.1f, %.0f nodes/sec%n", 'A' + e,
+                    searches[e] == 0 ? 0.0 : (double) depthSum[e] / searches[e],
+                    nanos[e] == 0 ? 0.0 : nodes[e] / (nanos[e] / 1e9));
+        }
+    }
+
+    private static GameResult await(Future<GameResult> game) {
+        try {
+            return game.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a game", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Game failed", e.getCause());
+        }
+    }
+
+    // The opening positions: from the file (cycled), or random play from the start
+    private List<String> openings(int count) throws IOException {
+        List<String> openings = new ArrayList<>(count);
+        if (openingsFile != null) {
+            List<String> lines = new ArrayList<>();
+            for (String line : Files.readAllLines(openingsFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    lines.add(BitBoard.fromFen(line.trim()).toFen());
+                }
+            }
+            if (lines.isEmpty()) {
+                throw new IllegalArgumentException("No openings in " + openingsFile);
+            }
+            for (int i = 0; i < count; i++) {
+                openings.add(lines.get(i % lines.size()));
+            }
+            return openings;
+        }
+
+        Random random = new Random(seed);
+        long[] moves = new long[BitBoard.MAX_MOVES];
+        while (openings.size() < count) {
+            BitBoard board = BitBoard.startPosition();
+            for (int ply = 0; ply < randomPlies && board.hasMoves(); ply++) {
+                int moveCount = board.generateMoves(moves);
+                board.makeMove(moves[random.nextInt(moveCount)]);
+            }
+            if (board.hasMoves()) {
+                openings.add(board.toFen());
+            }
+        }
+        return openings;
+    }
+
+    // ========== STATISTICS ==========
+
+    /**
+     * Formats the Elo difference that matches the score, with the margin of
+     * a 95% confidence interval
+     */
+    static String formatElo(int wins, int draws, int losses) {
+        int n = wins + draws + losses;
+        if (n == 0) {
+            return "-";
+        }
+        double score = (wins + draws / 2.0) / n;
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / n;
+        double margin = 1.96 * Math.sqrt(variance / n);
+        double elo = elo(score);
+        double low = elo(score - margin);
+        double high = elo(score + margin);
+        return String.format("%+.1f (%+.1f / %+.1f)", elo, low - elo, high - elo);
+    }
+
+    private static double elo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    // ========== COMMAND LINE ==========
+
+    public static void main(String[] args) throws IOException {
+        Tournament tournament = new Tournament();
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                tournament.set(args[i], args[i + 1]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java engine.Tournament [--games N] [--concurrency N] [--movetime MS]"
+                    + " [--depth N] [--hash MB] [--weights-a FILE] [--weights-b FILE]"
+                    + " [--without-a LIST] [--without-b LIST] [--openings FILE]"
+                    + " [--random-plies N] [--seed N] [--max-plies N] [--no-progress N] [--tablebases DIR] [--out FILE]");
+            System.exit(2);
+        }
+        tournament.run();
+    }
+
+    private void set(String option, String value) throws IOException {
+        switch (option) {
+            case "--games": games = positive(option, value); break;
+            case "--concurrency": concurrency = positive(option, value); break;
+            case "--movetime": moveTimeMillis = positive(option, value); break;
+            case "--depth": maxDepth = Math.min(positive(option, value), Search.MAX_PLY); break;
+            case "--hash": hashMb = positive(option, value); break;
+            case "--weights-a": weightsA = EvalWeights.load(Paths.get(value)); break;
+            case "--weights-b": weightsB = EvalWeights.load(Paths.get(value)); break;
+            case "--without-a": withoutA.addAll(features(value)); break;
+            case "--without-b": withoutB.addAll(features(value)); break;
+            case "--openings": openingsFile = Paths.get(value); break;
+            case "--random-plies": randomPlies = Integer.parseInt(value); break;
+            case "--seed": seed = Long.parseLong(value); break;
+            case "--max-plies": maxPlies = positive(option, value); break;
+            case "--no-progress": drawRules = new DrawRules(drawRules.getRepetitions(), Integer.parseInt(value)); break;
+            case "--tablebases": tablebase = Tablebase.open(Paths.get(value), Tablebase.MAX_SUPPORTED_PIECES); break;
+            case "--out": outFile = Paths.get(value); break;
+            default: throw new IllegalArgumentException("Unknown option: " + option);
+        }
+    }
+
+    // Comma-separated feature names, case-insensitive
+    private static Set<Search.Feature> features(String value) {
+        Set<Search.Feature> features = EnumSet.noneOf(Search.Feature.class);
+        for (String name : value.split(",")) {
+            features.add(Search.Feature.valueOf(name.trim().toUpperCase()));
+        }
+        return features;
+    }
+
+    private static int positive(String option, String value) {
+        int number = Integer.parseInt(value);
+        if (number < 1) {
+            throw new IllegalArgumentException(option + " must be at least 1: " + value);
+        }
+        return number;
+    }
+}
@@ -0,0 +1,173 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code TranspositionTable} class caches search results by Zobrist key.
+ *
+ * The table is a single preallocated {@code long[]}, so it adds no garbage
+ * during search. Buckets hold two entries: the first keeps the deepest
+ * result of the current search (older searches are always replaced), the
+ * second is replaced every time. Each entry is stored as
+ * {@code key ^ data} followed by {@code data}; a reader that sees a torn
+ * write gets a key mismatch and treats it as a miss, so concurrent threads
+ * can share the table without locks.
+ *
+ * Entry data layout:
+ * - bits 0-9   best move origin and destination (see {@code PackedMove})
+ * - bits 10-29 score (signed)
+ * - bits 30-37 depth
+ * - bits 38-39 bound type
+ * - bits 40-47 search age
+ * - bit 63     valid flag
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class TranspositionTable {
+
+    // ========== CONSTANTS ==========
+
+    /** Bound types */
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2; // score is at least the stored value (fail high)
+    public static final int BOUND_UPPER = 3; // score is at most the stored value (fail low)
+
+    /** Default size of the table. */
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /** Mask of the bits of a packed move kept in the table. */
+    public static final long MOVE_MASK = 0x3FF;
+
+    private static final int SCORE_SHIFT = 10;
+    private static final int DEPTH_SHIFT = 30;
+    private static final int BOUND_SHIFT = 38;
+    private static final int AGE_SHIFT = 40;
+    private static final long VALID = 1L << 63;
+
+    private static final int LONGS_PER_BUCKET = 4; // two entries of (key ^ data, data)
+    private static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+
+    // ========== ATTRIBUTES ==========
+
+    private final long[] table;
+    private final int bucketMask;
+    private int age;
+
+    // ========== CONSTRUCTOR ==========
+
+    /**
+     * Creates a table using at most the given number of megabytes. The bucket
+     * count is rounded down to a power of two.
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Table size must be positive: " + sizeMb);
+        }
+        long buckets = Long.highestOneBit(((long) sizeMb << 20) / BYTES_PER_BUCKET);
+        buckets = Math.min(buckets, Integer.MAX_VALUE / LONGS_PER_BUCKET + 1L);
+        this.table = new long[(int) (buckets * LONGS_PER_BUCKET)];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    // ========== TABLE OPERATIONS ==========
+
+    /**
+     * Looks up a position.
+     * @return the entry data, or 0 if the position is not stored
+     */
+    public long probe(long key) {
+        int index = bucketIndex(key);
+        for (int slot = 0; slot < LONGS_PER_BUCKET; slot += 2) {
+            long data = table[index + slot + 1];
+            if ((table[index + slot] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result. Win scores are made relative to the stored
+     * position so they stay valid when reached at another ply.
+     */
+    public void store(long key, long move, int score, int depth, int bound, int ply) {
+        long data = VALID
+                | (move & MOVE_MASK)
+                | ((long) (toTableScore(score, ply) & 0xFFFFF) << SCORE_SHIFT)
+                | ((long) Math.min(Math.max(depth, 0), 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) (age & 0xFF) << AGE_SHIFT);
+
+        int index = bucketIndex(key);
+        long oldData = table[index + 1];
+        boolean sameKey = (table[index] ^ oldData) == key;
+        if (oldData == 0 || sameKey || ageOf(oldData) != (age & 0xFF) || depth >= depth(oldData)) {
+            if (sameKey && (move & MOVE_MASK) == 0) {
+                data |= oldData & MOVE_MASK; // keep the known best move
+            }
+            table[index] = key ^ data;
+            table[index + 1] = data;
+        } else {
+            table[index + 2] = key ^ data;
+            table[index + 3] = data;
+        }
+    }
+
+    /**
+     * Marks the start of a new search so that entries from older searches
+     * are replaced first.
+     */
+    public void newSearch() {
+        age++;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        age = 0;
+    }
+
+    /** Number of entries the table can hold */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    private int bucketIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    // ========== ENTRY DECODING ==========
+
+    public static long move(long data) {
+        return data & MOVE_MASK;
+    }
+
+    public static int score(long data, int ply) {
+        int score = (int) (data << (64 - SCORE_SHIFT - 20) >> (64 - 20)); // sign-extend 20 bits
+        return fromTableScore(score, ply);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int ageOf(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+
+    private static int toTableScore(int score, int ply) {
+        if (score >= Search.WIN - Search.MAX_PLY) return score + ply;
+        if (score <= -Search.WIN + Search.MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score >= Search.WIN - Search.MAX_PLY) return score - ply;
+        if (score <= -Search.WIN + Search.MAX_PLY) return score + ply;
+        return score;
+    }
+}
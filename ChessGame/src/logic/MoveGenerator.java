@@ -4,11 +4,15 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
 
+import model.BitBoard;
 import model.Board;
+import model.PackedMove;
+import model.Piece;
 
 /**
  * The  MoveGenerator class provides a method for determining if a given
- * checker can make any move or skip.
+ * checker can make any move or skip. The search uses the allocation-free
+ * generators that write packed moves into a buffer.
  */
 public class MoveGenerator {
 
@@ -36,21 +40,19 @@ public class MoveGenerator {
 	public static List<Point> getMoves(Board board, int startIndex) {
 		
 		// Trivial cases
-		List<Point> endPoints = new ArrayList<>();
-		if (board == null || !Board.isValidIndex(startIndex)) {
+		List<Point> endPoints = new ArrayList<>(MoveTables.NUM_DIRECTIONS);
+		Piece piece = getPiece(board, startIndex);
+		if (piece == null) {
 			return endPoints;
 		}
 		
-		// Determine possible points
-		int id = board.get(startIndex);
-		Point p = Board.toPoint(startIndex);
-		addPoints(endPoints, p, id, 1);
-		
-		// Remove invalid points
-		for (int i = 0; i < endPoints.size(); i ++) {
-			Point end = endPoints.get(i);
-			if (board.get(end.x, end.y) != Board.EMPTY) {
-				endPoints.remove(i --);
+		// Only keep empty neighbours in the directions the piece can move
+		int first = MoveTables.firstDirection(piece.isWhite(), piece.isKing());
+		int last = MoveTables.lastDirection(piece.isWhite(), piece.isKing());
+		for (int dir = first; dir <= last; dir ++) {
+			int end = MoveTables.NEIGHBOURS[startIndex][dir];
+			if (end >= 0 && getPiece(board, end) == null) {
+				endPoints.add(Board.toPoint(end));
 			}
 		}
 		
@@ -82,23 +84,19 @@ public class MoveGenerator {
 	public static List<Point> getSkips(Board board, int startIndex) {
 		
 		// Trivial cases
-		List<Point> endPoints = new ArrayList<>();
-		if (board == null || !Board.isValidIndex(startIndex)) {
+		List<Point> endPoints = new ArrayList<>(MoveTables.NUM_DIRECTIONS);
+		Piece piece = getPiece(board, startIndex);
+		if (piece == null) {
 			return endPoints;
 		}
 		
-		// Determine possible points
-		int id = board.get(startIndex);
-		Point p = Board.toPoint(startIndex);
-		addPoints(endPoints, p, id, 2);
-		
-		// Remove invalid points
-		for (int i = 0; i < endPoints.size(); i ++) {
-			
-			// Check that the skip is valid
-			Point end = endPoints.get(i);
-			if (!isValidSkip(board, startIndex, Board.toIndex(end))) {
-				endPoints.remove(i --);
+		// Only keep the jumps over an enemy onto an empty square
+		int first = MoveTables.firstDirection(piece.isWhite(), piece.isKing());
+		int last = MoveTables.lastDirection(piece.isWhite(), piece.isKing());
+		for (int dir = first; dir <= last; dir ++) {
+			int end = MoveTables.JUMPS[startIndex][dir];
+			if (end >= 0 && isValidSkip(board, startIndex, end)) {
+				endPoints.add(Board.toPoint(end));
 			}
 		}
 
@@ -116,50 +114,301 @@ public class MoveGenerator {
 	public static boolean isValidSkip(Board board,
 			int startIndex, int endIndex) {
 		
-		if (board == null) {
+		Piece piece = getPiece(board, startIndex);
+		if (piece == null || !Board.isValidIndex(endIndex)) {
 			return false;
 		}
 
 		// Check that end is empty
-		if (board.get(endIndex) != Board.EMPTY) {
+		if (getPiece(board, endIndex) != null) {
 			return false;
 		}
 		
 		// Check that middle is enemy
-		int id = board.get(startIndex);
-		int midID = board.get(Board.toIndex(Board.middle(startIndex, endIndex)));
-		if (id == Board.INVALID || id == Board.EMPTY) {
-			return false;
-		} else if (midID == Board.INVALID || midID == Board.EMPTY) {
-			return false;
-		} else if (Board.isBlackChecker(midID) ^ Board.isWhiteChecker(id)) {
-			return false;
+		for (int dir = 0; dir < MoveTables.NUM_DIRECTIONS; dir ++) {
+			if (MoveTables.JUMPS[startIndex][dir] == endIndex) {
+				Piece middle = getPiece(board, MoveTables.NEIGHBOURS[startIndex][dir]);
+				return middle != null && middle.getColor() != piece.getColor();
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Gets the piece on a square.
+	 * 
+	 * @param board	the board to look at.
+	 * @param index	the square index.
+	 * @return the piece, or null if there is none or the index is invalid.
+	 */
+	private static Piece getPiece(Board board, int index) {
+		if (board == null || !Board.isValidIndex(index)) {
+			return null;
+		}
+		return board.getPieceAt(BitBoard.rowOf(index), BitBoard.colOf(index));
+	}
+	
+	/**
+	 * Writes all legal moves for the side to move into a caller-supplied
+	 * buffer as packed moves (see {@link PackedMove}). Captures are
+	 * mandatory, so simple moves are only written when no capture exists.
+	 * Nothing is allocated.
+	 * 
+	 * @param board		the position to generate moves for.
+	 * @param moves		the buffer to write to.
+	 * @param offset	the index of the first move in the buffer.
+	 * @return the number of moves written.
+	 */
+	public static int generateMoves(BitBoard board, long[] moves, int offset) {
+		int count = generateCaptures(board, moves, offset);
+		if (count > 0) {
+			return count;
 		}
 		
-		return true;
+		int empty = board.getEmpty();
+		int kings = board.getKings();
+		int pieces = board.getMover();
+		boolean isWhite = board.isWhiteToMove();
+		int[] manSteps = isWhite ?
+				MoveTables.WHITE_MAN_STEPS : MoveTables.BLACK_MAN_STEPS;
+		int kingRow = isWhite ? BitBoard.WHITE_KING_ROW : BitBoard.BLACK_KING_ROW;
+		while (pieces != 0) {
+			int from = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			
+			boolean isKing = (kings & (1 << from)) != 0;
+			int targets = empty & (isKing ? MoveTables.KING_STEPS[from] : manSteps[from]);
+			int promotions = isKing ? 0 : kingRow;
+			while (targets != 0) {
+				int to = Integer.numberOfTrailingZeros(targets);
+				targets &= targets - 1;
+				moves[offset + count ++] = PackedMove.encode(from, to, 0,
+						(promotions & (1 << to)) != 0);
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Writes all captures for the side to move into a caller-supplied buffer.
+	 * Each capture is a complete jump sequence: the generator follows every
+	 * chain depth-first until the piece cannot jump again (or a man reaches
+	 * the king row, which ends the turn) and writes one packed move per
+	 * sequence, holding the final square and every captured square. Jumped
+	 * pieces stay on the board until the move is over, so they can be neither
+	 * jumped twice nor landed on. The work done is proportional to the number
+	 * of jumps found, and nothing is allocated.
+	 * 
+	 * @param board		the position to generate captures for.
+	 * @param moves		the buffer to write to.
+	 * @param offset	the index of the first capture in the buffer.
+	 * @return the number of captures written.
+	 */
+	public static int generateCaptures(BitBoard board, long[] moves, int offset) {
+		int count = 0;
+		boolean isWhite = board.isWhiteToMove();
+		int enemies = board.getOpponent();
+		int kings = board.getKings();
+		int pieces = board.getMover() & jumpers(board, isWhite);
+		while (pieces != 0) {
+			int from = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			
+			// The moving piece leaves its square, so a king may pass over it again
+			int empty = board.getEmpty() | (1 << from);
+			boolean isKing = (kings & (1 << from)) != 0;
+			count += jumpChains(moves, offset + count, 0, from, from, 0,
+					empty, enemies, isWhite, isKing);
+		}
+		return count;
+	}
+	
+	/**
+	 * Extends a jump sequence from the current square and writes every
+	 * maximal sequence that starts with it.
+	 * 
+	 * @param base	the buffer index of the first move of this piece.
+	 * @param count	the number of moves of this piece written so far.
+	 * @return the number of moves of this piece written after this call.
+	 */
+	private static int jumpChains(long[] moves, int base, int count, int from, int current,
+			int captured, int empty, int enemies, boolean isWhite, boolean isKing) {
+		boolean extended = false;
+		int last = MoveTables.lastDirection(isWhite, isKing);
+		for (int dir = MoveTables.firstDirection(isWhite, isKing); dir <= last; dir ++) {
+			int to = MoveTables.JUMPS[current][dir];
+			if (to < 0 || (empty & (1 << to)) == 0) {
+				continue;
+			}
+			int over = 1 << MoveTables.NEIGHBOURS[current][dir];
+			if ((enemies & over) == 0 || (captured & over) != 0) {
+				continue;
+			}
+			
+			extended = true;
+			if (!isKing && isKingRow(to, isWhite)) {
+				count = addMove(moves, base, count, PackedMove.encode(from, to, captured | over, true));
+			} else {
+				count = jumpChains(moves, base, count, from, to, captured | over,
+						empty, enemies, isWhite, isKing);
+			}
+		}
+		if (!extended && captured != 0) {
+			count = addMove(moves, base, count, PackedMove.encode(from, current, captured));
+		}
+		return count;
+	}
+	
+	/**
+	 * Appends a move unless the same result (a king can reach the same square
+	 * over the same pieces in two orders) is already there.
+	 * 
+	 * @return the new number of moves of the piece.
+	 */
+	private static int addMove(long[] moves, int base, int count, long move) {
+		for (int i = 0; i < count; i ++) {
+			if (moves[base + i] == move) {
+				return count;
+			}
+		}
+		moves[base + count] = move;
+		return count + 1;
+	}
+	
+	private static boolean isKingRow(int square, boolean isWhite) {
+		return ((isWhite ? BitBoard.WHITE_KING_ROW : BitBoard.BLACK_KING_ROW)
+				& (1 << square)) != 0;
+	}
+	
+	/**
+	 * Finds the pieces of a colour that can make at least one jump.
+	 * 
+	 * @param board		the position to check.
+	 * @param isWhite	the colour to check.
+	 * @return the mask of squares holding such pieces.
+	 */
+	public static int jumpers(BitBoard board, boolean isWhite) {
+		int jumpers = 0;
+		int empty = board.getEmpty();
+		int enemies = isWhite ? board.getBlack() : board.getWhite();
+		int kings = board.getKings();
+		int pieces = isWhite ? board.getWhite() : board.getBlack();
+		while (pieces != 0) {
+			int from = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			
+			boolean isKing = (kings & (1 << from)) != 0;
+			int last = MoveTables.lastDirection(isWhite, isKing);
+			for (int dir = MoveTables.firstDirection(isWhite, isKing); dir <= last; dir ++) {
+				int to = MoveTables.JUMPS[from][dir];
+				if (to >= 0 && (empty & (1 << to)) != 0
+						&& (enemies & (1 << MoveTables.NEIGHBOURS[from][dir])) != 0) {
+					jumpers |= 1 << from;
+					break;
+				}
+			}
+		}
+		return jumpers;
+	}
+	
+	/**
+	 * Checks if a colour has a capture available, which makes captures
+	 * mandatory.
+	 * 
+	 * @param board		the position to check.
+	 * @param isWhite	the colour to check.
+	 * @return true if and only if that colour can jump.
+	 */
+	public static boolean canCapture(BitBoard board, boolean isWhite) {
+		return jumpers(board, isWhite) != 0;
 	}
 	
 	/**
-	 * Adds points that could potentially result in moves/skips.
+	 * Rebuilds the squares visited by a capture sequence, for display.
 	 * 
-	 * @param points	the list of points to add to.
-	 * @param p			the center point.
-	 * @param id		the ID at the center point.
-	 * @param delta		the amount to add/subtract.
+	 * @param board	the position before the move.
+	 * @param move	the packed capture.
+	 * @return the visited squares from the start to the end of the move, or
+	 * just the start and end if the move is not a capture.
 	 */
-	public static void addPoints(List<Point> points, Point p, int id, int delta) {
+	public static List<Point> getCapturePath(BitBoard board, long move) {
+		int from = PackedMove.from(move);
+		int to = PackedMove.to(move);
+		int captures = PackedMove.captures(move);
+		int[] path = new int[Integer.bitCount(captures) + 1];
+		path[0] = from;
 		
-		// Add points moving down
-		boolean isKing = Board.isKingChecker(id);
-		if (isKing || id == Board.BLACK_CHECKER) {
-			points.add(new Point(p.x + delta, p.y + delta));
-			points.add(new Point(p.x - delta, p.y + delta));
+		boolean isWhite = (board.getWhite() & (1 << from)) != 0;
+		boolean isKing = (board.getKings() & (1 << from)) != 0;
+		List<Point> points = new ArrayList<>(path.length);
+		if (captures != 0 && findPath(path, 0, to, captures, 0,
+				board.getEmpty() | (1 << from), isWhite, isKing)) {
+			for (int square : path) {
+				points.add(Board.toPoint(square));
+			}
+		} else {
+			points.add(Board.toPoint(from));
+			points.add(Board.toPoint(to));
+		}
+		return points;
+	}
+	
+	private static boolean findPath(int[] path, int depth, int to, int captures,
+			int captured, int empty, boolean isWhite, boolean isKing) {
+		if (captured == captures) {
+			return path[depth] == to;
+		}
+		int current = path[depth];
+		int last = MoveTables.lastDirection(isWhite, isKing);
+		for (int dir = MoveTables.firstDirection(isWhite, isKing); dir <= last; dir ++) {
+			int next = MoveTables.JUMPS[current][dir];
+			if (next < 0 || (empty & (1 << next)) == 0) {
+				continue;
+			}
+			int over = 1 << MoveTables.NEIGHBOURS[current][dir];
+			if ((captures & over) == 0 || (captured & over) != 0) {
+				continue;
+			}
+			path[depth + 1] = next;
+			if (findPath(path, depth + 1, to, captures, captured | over,
+					empty, isWhite, isKing)) {
+				return true;
+			}
 		}
+		return false;
+	}
+	
+	/**
+	 * Checks if a colour has at least one legal move, regardless of whose
+	 * turn it is.
+	 * 
+	 * @param board		the position to check.
+	 * @param isWhite	the colour to check.
+	 * @return true if and only if that colour can move.
+	 */
+	public static boolean hasMoves(BitBoard board, boolean isWhite) {
+		int empty = board.getEmpty();
+		int kings = board.getKings();
+		int pieces = isWhite ? board.getWhite() : board.getBlack();
+		int[] manSteps = isWhite ?
+				MoveTables.WHITE_MAN_STEPS : MoveTables.BLACK_MAN_STEPS;
 		
-		// Add points moving up
-		if (isKing || id == Board.WHITE_CHECKER) {
-			points.add(new Point(p.x + delta, p.y - delta));
-			points.add(new Point(p.x - delta, p.y - delta));
+		// Simple moves are the common case and need a single mask test
+		int men = pieces & ~kings;
+		int ownKings = pieces & kings;
+		for (int p = men; p != 0; p &= p - 1) {
+			if ((manSteps[Integer.numberOfTrailingZeros(p)] & empty) != 0) {
+				return true;
+			}
 		}
+		for (int p = ownKings; p != 0; p &= p - 1) {
+			if ((MoveTables.KING_STEPS[Integer.numberOfTrailingZeros(p)] & empty) != 0) {
+				return true;
+			}
+		}
+		
+		// Otherwise look for a jump
+		return jumpers(board, isWhite) != 0;
 	}
 }
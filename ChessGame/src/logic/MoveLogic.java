@@ -7,6 +7,7 @@ import java.util.List;
 
 import model.Board;
 import model.Game;
+import model.Piece;
 
 /**
  * The {@code MoveLogic} class determines what a valid move is. It fully
@@ -105,7 +106,8 @@ public class MoveLogic {
 	/**
 	 * Checks that the move is diagonal and magnitude 1 or 2 in the correct
 	 * direction. If the magnitude is not 2 (i.e. not a skip), it checks that
-	 * no skips are available by other checkers of the same player.
+	 * no skips are available by other checkers of the same player, using the
+	 * mask-based capture test instead of listing every checker's skips.
 	 * 
 	 * @param board			the current board to check against.
 	 * @param isP1Turn		the flag indicating if it is player 1's turn.
@@ -135,25 +137,9 @@ public class MoveLogic {
 		// Check that if this is not a skip, there are none available
 		Point middle = Board.middle(startIndex, endIndex);
 		int midID = board.get(Board.toIndex(middle));
-		if (midID < 0) {
-			
-			// Get the correct checkers
-			List<Point> checkers;
-			if (isP1Turn) {
-				checkers = board.find(Board.BLACK_CHECKER);
-				checkers.addAll(board.find(Board.BLACK_KING));
-			} else {
-				checkers = board.find(Board.WHITE_CHECKER);
-				checkers.addAll(board.find(Board.WHITE_KING));
-			}
-			
-			// Check if any of them have a skip available
-			for (Point p : checkers) {
-				int index = Board.toIndex(p);
-				if (!MoveGenerator.getSkips(board, index).isEmpty()) {
-					return false;
-				}
-			}
+		if (midID < 0 && MoveGenerator.canCapture(board.toBitBoard(
+				isP1Turn ? Piece.Color.BLACK : Piece.Color.WHITE), !isP1Turn)) {
+			return false;
 		}
 		
 		// Passed all tests
@@ -0,0 +1,82 @@
+package logic;
+
+import model.BitBoard;
+
+/**
+ * The {@code MoveTables} class holds precomputed neighbour and jump tables
+ * for the 32 dark squares (numbered as in {@link BitBoard}). Move generation
+ * looks squares up in these tables instead of doing coordinate arithmetic.
+ */
+public final class MoveTables {
+
+	/** Direction indices into {@link #NEIGHBOURS} and {@link #JUMPS}. */
+	public static final int UP_LEFT = 0;
+	public static final int UP_RIGHT = 1;
+	public static final int DOWN_LEFT = 2;
+	public static final int DOWN_RIGHT = 3;
+	public static final int NUM_DIRECTIONS = 4;
+
+	/** The square one step away in each direction, or -1 if off the board. */
+	public static final int[][] NEIGHBOURS = new int[BitBoard.NUM_SQUARES][NUM_DIRECTIONS];
+
+	/** The landing square of a jump in each direction, or -1 if off the board. */
+	public static final int[][] JUMPS = new int[BitBoard.NUM_SQUARES][NUM_DIRECTIONS];
+
+	/** Masks of the squares a white man, black man or king can step to. */
+	public static final int[] WHITE_MAN_STEPS = new int[BitBoard.NUM_SQUARES];
+	public static final int[] BLACK_MAN_STEPS = new int[BitBoard.NUM_SQUARES];
+	public static final int[] KING_STEPS = new int[BitBoard.NUM_SQUARES];
+
+	static {
+		int[] rowDeltas = {-1, -1, 1, 1};
+		int[] colDeltas = {-1, 1, -1, 1};
+		for (int square = 0; square < BitBoard.NUM_SQUARES; square ++) {
+			int row = BitBoard.rowOf(square);
+			int col = BitBoard.colOf(square);
+			for (int dir = 0; dir < NUM_DIRECTIONS; dir ++) {
+				int step = BitBoard.toSquare(row + rowDeltas[dir], col + colDeltas[dir]);
+				NEIGHBOURS[square][dir] = step;
+				JUMPS[square][dir] = BitBoard.toSquare(
+						row + 2 * rowDeltas[dir], col + 2 * colDeltas[dir]);
+				if (step >= 0) {
+					KING_STEPS[square] |= 1 << step;
+					if (isForward(dir, true)) {
+						WHITE_MAN_STEPS[square] |= 1 << step;
+					} else {
+						BLACK_MAN_STEPS[square] |= 1 << step;
+					}
+				}
+			}
+		}
+	}
+
+	private MoveTables() {
+	}
+
+	/**
+	 * Checks if a direction is forward for a man of the given colour. White
+	 * men move up the board, black men move down.
+	 *
+	 * @param dir		the direction index.
+	 * @param isWhite	the colour of the man.
+	 * @return true if and only if a man of that colour may move that way.
+	 */
+	public static boolean isForward(int dir, boolean isWhite) {
+		return isWhite ? dir <= UP_RIGHT : dir >= DOWN_LEFT;
+	}
+
+	/**
+	 * Gets the first direction index a piece may move in. Directions from
+	 * here up to {@link #lastDirection(boolean, boolean)} are legal.
+	 */
+	public static int firstDirection(boolean isWhite, boolean isKing) {
+		return isKing || isWhite ? UP_LEFT : DOWN_LEFT;
+	}
+
+	/**
+	 * Gets the last direction index a piece may move in.
+	 */
+	public static int lastDirection(boolean isWhite, boolean isKing) {
+		return isKing || !isWhite ? DOWN_RIGHT : UP_RIGHT;
+	}
+}
@@ -0,0 +1,268 @@
+package logic;
+
+import java.util.List;
+
+import model.BitBoard;
+import model.Board;
+import model.Move;
+import model.PackedMove;
+import model.Piece;
+import model.Zobrist;
+
+/**
+ * The {@code Perft} class counts the leaf nodes of the move tree to a fixed
+ * depth. Comparing the counts against known values checks the move
+ * generator's correctness, and the time taken measures its speed.
+ *
+ * Usage:
+ * <pre>
+ * java logic.Perft                        run the test suite (exit code 1 on a mismatch)
+ * java logic.Perft [fen|start] depth      count each depth from 1 to depth
+ * java logic.Perft divide [fen|start] depth
+ *                                         count the subtree below each root move
+ * java logic.Perft board [fen|start] depth
+ *                                         count through Board.getValidMoves
+ * </pre>
+ * Positions use the notation of {@link BitBoard#fromFen(String)}.
+ */
+public class Perft {
+
+	/** The starting position, white to move as in the game. */
+	public static final String START_FEN =
+			"W:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12";
+
+	/**
+	 * Test positions and their counts from depth 1. The start position counts
+	 * are the published checkers perft numbers. The other counts were checked
+	 * against an independent generator; they cover king multi-jumps, jump
+	 * sequences that branch, men crowned while capturing, and king jumps that
+	 * end on the square they started from.
+	 */
+	private static final Object[][] SUITE = {
+		{START_FEN, new long[] {7, 49, 302, 1469, 7361, 36768, 179740, 845931, 3963680, 18391564}},
+		{"W:WK6,18,22,K27:B7,10,14,15,K23,K30", new long[] {2, 2, 6, 39, 165, 891, 3636, 22892, 94042}},
+		{"B:WK14,K15,19,23,24:BK3,6,7,10,11", new long[] {2, 7, 20, 97, 563, 2464, 14431, 65559, 384520}},
+		{"W:W10,K32:B6,7,15,K24,K25,26", new long[] {2, 28, 104, 1037, 4245, 39218, 148664, 1298339, 5379264}},
+		{"B:W9,10,11,18,19,K27:B5,6,K22,K31", new long[] {6, 20, 52, 251, 1371, 7082, 45306, 247195, 1670174}},
+		{"W:WK10:B15,23,22,14", new long[] {1, 0}},
+		{"W:WK10,30:B15,23,22,14,3", new long[] {1, 2, 7, 12, 62, 82, 416, 799}},
+	};
+
+	private final BitBoard board;
+	private final long[][] moveBuffers;
+
+	/**
+	 * Creates a perft counter for a position.
+	 *
+	 * @param board		the position to count from; it is restored afterwards.
+	 * @param maxDepth	the deepest count that will be requested.
+	 */
+	public Perft(BitBoard board, int maxDepth) {
+		this.board = board;
+		this.moveBuffers = new long[maxDepth + 1][BitBoard.MAX_MOVES];
+	}
+
+	/**
+	 * Counts the leaf nodes at the given depth.
+	 *
+	 * @param depth	the depth in plies.
+	 * @return the number of leaf nodes.
+	 */
+	public long count(int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		long[] moves = moveBuffers[depth];
+		int moveCount = MoveGenerator.generateMoves(board, moves, 0);
+		if (depth == 1) {
+			return moveCount; // bulk count the last ply
+		}
+		long nodes = 0;
+		for (int i = 0; i < moveCount; i ++) {
+			board.makeMove(moves[i]);
+			nodes += count(depth - 1);
+			board.unmakeMove();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Walks the move tree checking that every move is taken back exactly: the
+	 * position and its key after unmaking must be the ones before making, and
+	 * the key kept incrementally must match one computed from scratch.
+	 *
+	 * @param depth	the depth in plies.
+	 * @return the first move that failed, formatted, or null if none did.
+	 */
+	public String checkRoundTrip(int depth) {
+		if (depth == 0) {
+			return null;
+		}
+		long[] moves = moveBuffers[depth];
+		int moveCount = MoveGenerator.generateMoves(board, moves, 0);
+		BitBoard before = new BitBoard();
+		before.copyFrom(board);
+		for (int i = 0; i < moveCount; i ++) {
+			board.makeMove(moves[i]);
+			String failed = board.getKey() == Zobrist.compute(board.getWhite(), board.getBlack(),
+					board.getKings(), board.isWhiteToMove()) ? checkRoundTrip(depth - 1) : format(moves[i]);
+			board.unmakeMove();
+			if (failed == null && (!board.equals(before) || board.getKey() != before.getKey())) {
+				failed = format(moves[i]);
+			}
+			if (failed != null) {
+				return failed;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Prints the count below each root move, to find which move a wrong count
+	 * comes from.
+	 *
+	 * @param depth	the depth in plies (at least 1).
+	 * @return the total number of leaf nodes.
+	 */
+	public long divide(int depth) {
+		long[] moves = new long[BitBoard.MAX_MOVES];
+		int moveCount = MoveGenerator.generateMoves(board, moves, 0);
+		long total = 0;
+		for (int i = 0; i < moveCount; i ++) {
+			board.makeMove(moves[i]);
+			long nodes = count(depth - 1);
+			board.unmakeMove();
+			total += nodes;
+			System.out.printf("%-24s %d%n", format(moves[i]), nodes);
+		}
+		System.out.printf("%d moves, %d nodes%n", moveCount, total);
+		return total;
+	}
+
+	/**
+	 * Counts the leaf nodes through the object-based {@link Board} API, to
+	 * check that it agrees with the packed generator.
+	 *
+	 * @param board	the board to count from; it is restored afterwards.
+	 * @param color	the colour to move.
+	 * @param depth	the depth in plies.
+	 * @return the number of leaf nodes.
+	 */
+	public static long countBoard(Board board, Piece.Color color, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		List<Move> moves = board.getValidMoves(color);
+		if (depth == 1) {
+			return moves.size();
+		}
+		Piece.Color next = color == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+		long nodes = 0;
+		for (Move move : moves) {
+			board.applyMove(move);
+			nodes += countBoard(board, next, depth - 1);
+			board.undoMove(move);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Formats a packed move in standard square numbers, e.g. {@code 22-18},
+	 * or {@code 22x6 (14,10)} for a jump sequence with its captured squares.
+	 *
+	 * @param move	the packed move.
+	 * @return the move text.
+	 */
+	public static String format(long move) {
+		int captures = PackedMove.captures(move);
+		String separator = captures == 0 ? "-" : "x";
+		String text = (PackedMove.from(move) + 1) + separator + (PackedMove.to(move) + 1);
+		if (Integer.bitCount(captures) > 1) {
+			StringBuilder sb = new StringBuilder(text).append(" (");
+			for (int c = captures; c != 0; c &= c - 1) {
+				sb.append(Integer.numberOfTrailingZeros(c) + 1).append(c == Integer.lowestOneBit(c) ? ")" : ",");
+			}
+			text = sb.toString();
+		}
+		return text;
+	}
+
+	// ========== COMMAND LINE ==========
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.exit(runSuite() ? 0 : 1);
+		} else if (args[0].equals("divide") && args.length == 3) {
+			int depth = Integer.parseInt(args[2]);
+			new Perft(parse(args[1]), depth).divide(Math.max(depth, 1));
+		} else if (args[0].equals("board") && args.length == 3) {
+			BitBoard bits = parse(args[1]);
+			Board board = new Board();
+			board.setFromBitBoard(bits);
+			Piece.Color color = bits.isWhiteToMove() ? Piece.Color.WHITE : Piece.Color.BLACK;
+			for (int depth = 1; depth <= Integer.parseInt(args[2]); depth ++) {
+				long start = System.nanoTime();
+				long nodes = countBoard(board, color, depth);
+				report(depth, nodes, System.nanoTime() - start);
+			}
+		} else if (args.length == 2) {
+			int maxDepth = Integer.parseInt(args[1]);
+			Perft perft = new Perft(parse(args[0]), maxDepth);
+			for (int depth = 1; depth <= maxDepth; depth ++) {
+				long start = System.nanoTime();
+				long nodes = perft.count(depth);
+				report(depth, nodes, System.nanoTime() - start);
+			}
+		} else {
+			System.err.println("Usage: java logic.Perft [divide|board] [fen|start] depth");
+			System.exit(2);
+		}
+	}
+
+	/** Depth of the make/unmake round-trip check run on each suite position. */
+	private static final int ROUND_TRIP_DEPTH = 6;
+
+	/**
+	 * Runs every suite position to its deepest known count, after checking
+	 * that make and unmake round-trip on it.
+	 *
+	 * @return true if and only if every count and round trip matched.
+	 */
+	public static boolean runSuite() {
+		boolean passed = true;
+		long totalNodes = 0;
+		long totalNanos = 0;
+		for (Object[] test : SUITE) {
+			String fen = (String) test[0];
+			long[] expected = (long[]) test[1];
+			System.out.println(fen);
+			Perft perft = new Perft(BitBoard.fromFen(fen), Math.max(expected.length, ROUND_TRIP_DEPTH));
+			String failed = perft.checkRoundTrip(ROUND_TRIP_DEPTH);
+			passed &= failed == null;
+			System.out.println("  make/unmake   " + (failed == null ? "ok" : "FAILED at " + failed));
+			for (int depth = 1; depth <= expected.length; depth ++) {
+				long start = System.nanoTime();
+				long nodes = perft.count(depth);
+				long nanos = System.nanoTime() - start;
+				totalNodes += nodes;
+				totalNanos += nanos;
+				boolean ok = nodes == expected[depth - 1];
+				passed &= ok;
+				System.out.printf("  depth %2d %12d %s%n", depth, nodes,
+						ok ? "ok" : "FAILED, expected " + expected[depth - 1]);
+			}
+		}
+		System.out.printf("%s: %d nodes in %.2f s (%.0f nodes/sec)%n", passed ? "PASSED" : "FAILED",
+				totalNodes, totalNanos / 1e9, totalNodes / (totalNanos / 1e9));
+		return passed;
+	}
+
+	private static BitBoard parse(String position) {
+		return BitBoard.fromFen(position.equals("start") ? START_FEN : position);
+	}
+
+	private static void report(int depth, long nodes, long nanos) {
+		System.out.printf("depth %2d %12d %10.3f s %12.0f nodes/sec%n",
+				depth, nodes, nanos / 1e9, nodes / (nanos / 1e9));
+	}
+}
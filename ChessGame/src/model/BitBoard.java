@@ -0,0 +1,509 @@
+package model;
+
+import java.util.Arrays;
+
+import logic.MoveGenerator;
+
+/**
+ * The {@code BitBoard} class is a compact representation of a checkers
+ * position. Only the 32 dark squares are playable, so a whole position fits
+ * into three 32-bit masks (white pieces, black pieces and kings of either
+ * colour) plus the side-to-move bit.
+ *
+ * Squares are numbered row by row from the top of the board:
+ * {@code square = row * 4 + col / 2}. Black starts on squares 0-11 and moves
+ * towards higher squares, white starts on squares 20-31 and moves towards
+ * lower squares.
+ *
+ * Moves are packed into a {@code long} (see {@link PackedMove}) so that the
+ * AI can generate and play them without allocating any objects. The search
+ * walks a single instance with {@link #makeMove(long)} and
+ * {@link #unmakeMove()}.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public class BitBoard {
+
+    // ========== CONSTANTS ==========
+
+    /** Number of playable (dark) squares. */
+    public static final int NUM_SQUARES = 32;
+
+    /** Upper bound on the number of moves in any position, used to size move buffers. */
+    public static final int MAX_MOVES = 128;
+
+    /** Squares on which a black man is promoted. */
+    public static final int BLACK_KING_ROW = 0xF0000000;
+
+    /** Squares on which a white man is promoted. */
+    public static final int WHITE_KING_ROW = 0x0000000F;
+
+    // Journal size on the first makeMove; it doubles from there
+    private static final int INITIAL_JOURNAL_CAPACITY = 64;
+    private static final long[] NO_MOVES = new long[0];
+    private static final int[] NO_MASKS = new int[0];
+
+    // ========== ATTRIBUTES ==========
+
+    private int white;          // squares holding a white piece
+    private int black;          // squares holding a black piece
+    private int kings;          // squares holding a king of either colour
+    private boolean whiteToMove; // side-to-move bit
+    private long key;           // Zobrist key, maintained incrementally by moves
+    private int quietPlies;     // plies since the last capture or man move
+
+    // Reversible move journal for make/unmake: the packed move, the kings it captured, the key
+    // and the quiet plies before it per ply. The keys double as the history repetitions are found in.
+    // Allocated by the first makeMove, so positions that are only queried (e.g. Board.toBitBoard) stay small.
+    private long[] moveStack = NO_MOVES;
+    private int[] capturedKingStack = NO_MASKS;
+    private long[] keyStack = NO_MOVES;
+    private int[] quietPliesStack = NO_MASKS;
+    private int stackSize;
+
+
+    // ========== CONSTRUCTORS ==========
+
+    /**
+     * Creates an empty position with white to move
+     */
+    public BitBoard() {
+        this.whiteToMove = true;
+    }
+
+    /**
+     * Creates a position from its masks
+     */
+    public BitBoard(int white, int black, int kings, boolean whiteToMove) {
+        set(white, black, kings, whiteToMove);
+    }
+
+    /**
+     * Creates the standard starting position. White moves first, matching
+     * {@link GameController}.
+     */
+    public static BitBoard startPosition() {
+        return new BitBoard(0xFFF00000, 0x00000FFF, 0, true);
+    }
+
+    // ========== STATE ==========
+
+    public void set(int white, int black, int kings, boolean whiteToMove) {
+        this.white = white;
+        this.black = black;
+        this.kings = kings & (white | black);
+        this.whiteToMove = whiteToMove;
+        this.key = Zobrist.compute(this.white, this.black, this.kings, whiteToMove);
+        this.quietPlies = 0;
+        this.stackSize = 0;
+    }
+
+    /**
+     * Copies the position of another board together with its move journal,
+     * so that repetitions of positions reached before the copy are still
+     * detected (and those moves can be unmade).
+     */
+    public void copyFrom(BitBoard other) {
+        this.white = other.white;
+        this.black = other.black;
+        this.kings = other.kings;
+        this.whiteToMove = other.whiteToMove;
+        this.key = other.key;
+        this.quietPlies = other.quietPlies;
+        if (moveStack.length < other.stackSize) {
+            int capacity = other.moveStack.length;
+            moveStack = new long[capacity];
+            capturedKingStack = new int[capacity];
+            keyStack = new long[capacity];
+            quietPliesStack = new int[capacity];
+        }
+        System.arraycopy(other.moveStack, 0, moveStack, 0, other.stackSize);
+        System.arraycopy(other.capturedKingStack, 0, capturedKingStack, 0, other.stackSize);
+        System.arraycopy(other.keyStack, 0, keyStack, 0, other.stackSize);
+        System.arraycopy(other.quietPliesStack, 0, quietPliesStack, 0, other.stackSize);
+        this.stackSize = other.stackSize;
+    }
+
+    public int getWhite() { return white; }
+    public int getBlack() { return black; }
+    public int getKings() { return kings; }
+    public int getOccupied() { return white | black; }
+    public int getEmpty() { return ~(white | black); }
+
+    public boolean isWhiteToMove() { return whiteToMove; }
+    public void setWhiteToMove(boolean whiteToMove) {
+        if (this.whiteToMove != whiteToMove) {
+            this.whiteToMove = whiteToMove;
+            key ^= Zobrist.SIDE_KEY;
+        }
+    }
+
+    /** Zobrist key of the position, see {@link Zobrist} */
+    public long getKey() { return key; }
+
+    /** Pieces of the side to move */
+    public int getMover() { return whiteToMove ? white : black; }
+
+    /** Pieces of the side not to move */
+    public int getOpponent() { return whiteToMove ? black : white; }
+
+    public int getPieceCount(boolean forWhite) {
+        return Integer.bitCount(forWhite ? white : black);
+    }
+
+    public int getKingCount(boolean forWhite) {
+        return Integer.bitCount((forWhite ? white : black) & kings);
+    }
+
+    // ========== SQUARE HELPERS ==========
+
+    /**
+     * Converts a row/column pair to a square number.
+     * @return the square, or -1 if the position is off the board or light
+     */
+    public static int toSquare(int row, int col) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 8 || ((row + col) & 1) == 0) {
+            return -1;
+        }
+        return row * 4 + col / 2;
+    }
+
+    public static int rowOf(int square) {
+        return square >> 2;
+    }
+
+    public static int colOf(int square) {
+        return ((square & 3) << 1) + (((square >> 2) & 1) ^ 1);
+    }
+
+    public static boolean isValidSquare(int square) {
+        return square >= 0 && square < NUM_SQUARES;
+    }
+
+    // ========== MOVE GENERATION ==========
+
+    /**
+     * Writes all legal moves for the side to move into the buffer. Captures
+     * are mandatory, so simple moves are only generated when no capture
+     * exists.
+     *
+     * @param moves buffer of at least {@link #MAX_MOVES} entries
+     * @return the number of moves written
+     * @see MoveGenerator#generateMoves(BitBoard, long[], int)
+     */
+    public int generateMoves(long[] moves) {
+        return MoveGenerator.generateMoves(this, moves, 0);
+    }
+
+    /**
+     * Writes all captures for the side to move into the buffer
+     * @return the number of captures written
+     */
+    public int generateCaptures(long[] moves) {
+        return MoveGenerator.generateCaptures(this, moves, 0);
+    }
+
+    /**
+     * Checks if the given colour has at least one legal move, regardless of
+     * whose turn it is
+     */
+    public boolean hasMoves(boolean forWhite) {
+        return MoveGenerator.hasMoves(this, forWhite);
+    }
+
+    /**
+     * Checks if the side to move has at least one legal move
+     */
+    public boolean hasMoves() {
+        return hasMoves(whiteToMove);
+    }
+
+    /**
+     * The game is over when either colour can no longer move (a colour
+     * without pieces has no moves either).
+     */
+    public boolean isGameOver() {
+        return !hasMoves(true) || !hasMoves(false);
+    }
+
+    // ========== MOVE EXECUTION ==========
+
+    /**
+     * Plays a packed move in place and passes the turn to the opponent. The
+     * move must come from the generator, which sets its promotion flag.
+     * Combine with {@link #copyFrom(BitBoard)} for copy-make search.
+     */
+    public void applyMove(long move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int fromBit = 1 << from;
+        int toBit = 1 << to;
+        int captures = PackedMove.captures(move);
+
+        boolean wasKing = (kings & fromBit) != 0;
+        int kind = whiteToMove ? Zobrist.WHITE_MAN : Zobrist.BLACK_MAN;
+        int enemyKind = whiteToMove ? Zobrist.BLACK_MAN : Zobrist.WHITE_MAN;
+        key ^= Zobrist.PIECE_KEYS[wasKing ? kind + 1 : kind][from];
+        if (captures != 0) {
+            key ^= Zobrist.xorSquares(Zobrist.PIECE_KEYS[enemyKind], captures & ~kings);
+            key ^= Zobrist.xorSquares(Zobrist.PIECE_KEYS[enemyKind + 1], captures & kings);
+        }
+
+        // Clear, then set: a king's capture chain may end on the square it started from
+        if (whiteToMove) {
+            white = (white & ~fromBit) | toBit;
+            black &= ~captures;
+        } else {
+            black = (black & ~fromBit) | toBit;
+            white &= ~captures;
+        }
+        kings &= ~captures;
+        if (wasKing) {
+            kings = (kings & ~fromBit) | toBit;
+        } else if (PackedMove.isPromotion(move)) {
+            kings |= toBit;
+        }
+        // Keyed from the moved piece's kind, not the masks, so it is right for from == to as well
+        key ^= Zobrist.PIECE_KEYS[wasKing || PackedMove.isPromotion(move) ? kind + 1 : kind][to];
+        key ^= Zobrist.SIDE_KEY;
+        whiteToMove = !whiteToMove;
+        quietPlies = captures != 0 || !wasKing ? 0 : quietPlies + 1;
+    }
+
+    // ========== MAKE / UNMAKE ==========
+
+    /**
+     * Plays a packed move and records which of the captured pieces were kings
+     * (the move itself carries the promotion flag) so that it can be taken
+     * back with {@link #unmakeMove()}. No objects are allocated once the journal has
+     * grown to the search depth.
+     */
+    public void makeMove(long move) {
+        if (stackSize == moveStack.length) {
+            int capacity = Math.max(INITIAL_JOURNAL_CAPACITY, stackSize * 2);
+            moveStack = Arrays.copyOf(moveStack, capacity);
+            capturedKingStack = Arrays.copyOf(capturedKingStack, capacity);
+            keyStack = Arrays.copyOf(keyStack, capacity);
+            quietPliesStack = Arrays.copyOf(quietPliesStack, capacity);
+        }
+        moveStack[stackSize] = move;
+        keyStack[stackSize] = key;
+        quietPliesStack[stackSize] = quietPlies;
+        capturedKingStack[stackSize] = kings & PackedMove.captures(move);
+        stackSize++;
+        applyMove(move);
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(long)}
+     * @return the move that was taken back
+     */
+    public long unmakeMove() {
+        if (stackSize == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        stackSize--;
+        long move = moveStack[stackSize];
+
+        int fromBit = 1 << PackedMove.from(move);
+        int toBit = 1 << PackedMove.to(move);
+        int captures = PackedMove.captures(move);
+
+        whiteToMove = !whiteToMove;
+        if (whiteToMove) {
+            white = (white & ~toBit) | fromBit;
+            black |= captures;
+        } else {
+            black = (black & ~toBit) | fromBit;
+            white |= captures;
+        }
+        if (PackedMove.isPromotion(move)) {
+            kings &= ~toBit;
+        } else if ((kings & toBit) != 0) {
+            kings = (kings & ~toBit) | fromBit;
+        }
+        kings |= capturedKingStack[stackSize];
+        key = keyStack[stackSize];
+        quietPlies = quietPliesStack[stackSize];
+        return move;
+    }
+
+    /** Number of moves that can currently be unmade */
+    public int getHistorySize() {
+        return stackSize;
+    }
+
+    /** Gets the move played {@code pliesAgo + 1} plies back, or 0 if there is none */
+    public long getLastMove(int pliesAgo) {
+        int index = stackSize - 1 - pliesAgo;
+        return index >= 0 ? moveStack[index] : 0;
+    }
+
+    // ========== DRAW DETECTION ==========
+
+    /**
+     * Plies played since the last capture or man move. Neither can be taken
+     * back, so no position before them can occur again.
+     */
+    public int getQuietPlies() {
+        return quietPlies;
+    }
+
+    /**
+     * Counts how often the current position occurred before in the move
+     * journal. Only the quiet plies are looked at, every other one (the
+     * same side to move).
+     */
+    public int countRepetitions() {
+        int count = 0;
+        int limit = Math.min(quietPlies, stackSize);
+        for (int pliesAgo = 4; pliesAgo <= limit; pliesAgo += 2) {
+            if (keyStack[stackSize - pliesAgo] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the current position occurred before in the move journal
+     */
+    public boolean isRepetition() {
+        int limit = Math.min(quietPlies, stackSize);
+        for (int pliesAgo = 4; pliesAgo <= limit; pliesAgo += 2) {
+            if (keyStack[stackSize - pliesAgo] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ========== FEN ==========
+
+    /**
+     * Parses a position in the FEN-like notation used by PDN, e.g.
+     * {@code "W:W21,22,K30:B1,2,K5"}: the side to move, then the white and
+     * black pieces. Squares are numbered 1-32 (this class's square + 1,
+     * which is the standard checkers numbering) and kings are prefixed
+     * with {@code K}.
+     *
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static BitBoard fromFen(String fen) {
+        String[] fields = fen.trim().split(":");
+        if (fields.length != 3 || !(fields[0].equals("W") || fields[0].equals("B"))) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        int[] masks = new int[3]; // white, black, kings
+        for (int i = 1; i < 3; i++) {
+            String field = fields[i];
+            int colour;
+            if (field.startsWith("W")) {
+                colour = 0;
+            } else if (field.startsWith("B")) {
+                colour = 1;
+            } else {
+                throw new IllegalArgumentException("Invalid FEN piece list: " + field);
+            }
+            for (String token : field.substring(1).split(",")) {
+                token = token.trim();
+                if (token.isEmpty()) {
+                    continue;
+                }
+                boolean king = token.startsWith("K");
+                int square;
+                try {
+                    square = Integer.parseInt(king ? token.substring(1) : token) - 1;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid FEN square: " + token, e);
+                }
+                if (!isValidSquare(square)) {
+                    throw new IllegalArgumentException("Invalid FEN square: " + token);
+                }
+                masks[colour] |= 1 << square;
+                if (king) {
+                    masks[2] |= 1 << square;
+                }
+            }
+        }
+        if ((masks[0] & masks[1]) != 0) {
+            throw new IllegalArgumentException("Square occupied twice: " + fen);
+        }
+        return new BitBoard(masks[0], masks[1], masks[2], fields[0].equals("W"));
+    }
+
+    /**
+     * Formats the position in the notation read by {@link #fromFen(String)}
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(whiteToMove ? "W" : "B");
+        appendFenPieces(sb.append(":W"), white);
+        appendFenPieces(sb.append(":B"), black);
+        return sb.toString();
+    }
+
+    private void appendFenPieces(StringBuilder sb, int pieces) {
+        boolean first = true;
+        while (pieces != 0) {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (!first) {
+                sb.append(',');
+            }
+            if ((kings & (1 << square)) != 0) {
+                sb.append('K');
+            }
+            sb.append(square + 1);
+            first = false;
+        }
+    }
+
+    // ========== OBJECT METHODS ==========
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        BitBoard other = (BitBoard) obj;
+        return white == other.white &&
+               black == other.black &&
+               kings == other.kings &&
+               whiteToMove == other.whiteToMove;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = white;
+        result = 31 * result + black;
+        result = 31 * result + kings;
+        return 31 * result + (whiteToMove ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                int square = toSquare(row, col);
+                char c = '.';
+                if (square >= 0) {
+                    int bit = 1 << square;
+                    boolean king = (kings & bit) != 0;
+                    if ((white & bit) != 0) {
+                        c = king ? 'W' : 'w';
+                    } else if ((black & bit) != 0) {
+                        c = king ? 'B' : 'b';
+                    } else {
+                        c = '-';
+                    }
+                }
+                sb.append(c);
+            }
+            sb.append('\n');
+        }
+        sb.append(whiteToMove ? "White" : "Black").append(" to move\n");
+        return sb.toString();
+    }
+}
@@ -1,8 +1,9 @@
 package model;
+import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import logic.MoveGenerator;
 import model.Piece.Color;
 
 public class Board{
@@ -15,6 +16,11 @@ public class Board{
     private List<Piece> capturedWhitePieces; // List of captured white pieces
     private List<Piece> capturedBlackPieces; // List of captured black pieces
 
+    //Occupancy masks over the dark squares (see BitBoard), kept in step with the array by putPiece
+    private int whiteMask;
+    private int blackMask;
+    private int kingMask;
+
     //Game state
     private int whitePiecesCount; // Count of white pieces on the board
     private int blackPiecesCount; // Count of black pieces on the board
@@ -22,38 +28,19 @@ public class Board{
     private int blackKingsCount; // Count of black kings on the board
 
     
-    private Stack<BoardState> moveHistory; // Stack to keep track of moves for undo functionality
+    private final MoveJournal history; // Played moves, for undo and redo
 
     //board metadata
     private int moveCount; // Count of moves made in the game
     private Color lastMovedColor; // Color of the last player who made a move
 
-    //For storing board state snapshots
-    private static class BoardState {
-        private Piece[][] boardSnapshot;
-        private int whiteCount;
-        private int blackCount;
-        private int whiteKings;
-        private int blackKings; 
-        private List<Piece> capturedWhite;
-        private List<Piece> capturedBlack;
-
-        
-    
-    
-    
-    
-    
-    
-    }
-
 
     //Constructor to initialize the board
     public Board(){
         this.board = new Piece[BOARD_SIZE][BOARD_SIZE];
         this.capturedWhitePieces = new ArrayList<>();
         this.capturedBlackPieces = new ArrayList<>();
-        this.moveHistory = new Stack<>();
+        this.history = new MoveJournal();
         resetBoard();
     }
     public void resetBoard() {
@@ -63,6 +50,9 @@ public class Board{
                 board[i][j] = null; // Clear the board
             }
         }
+        whiteMask = 0;
+        blackMask = 0;
+        kingMask = 0;
         //reset all the counters variables
         whitePiecesCount = 0;
         blackPiecesCount = 0;
@@ -74,7 +64,7 @@ public class Board{
         // Clear captured pieces
         capturedWhitePieces.clear();
         capturedBlackPieces.clear();
-        moveHistory.clear();
+        history.clear();
         
         // Initialize starting positions
         initializeStartingPositions();
@@ -87,7 +77,7 @@ public class Board{
             for (int col = 0 ; col < BOARD_SIZE; col++) {
                 if(isDarkSquare(row, col)) {
                     Piece blackPiece = new Piece(Piece.Color.BLACK, row, col);
-                    board[row][col] = blackPiece;
+                    putPiece(row, col, blackPiece);
                     blackPiecesCount++;
                 } 
             }
@@ -98,7 +88,7 @@ public class Board{
             for (int col = 0 ; col < BOARD_SIZE; col++) {
                 if(isDarkSquare(row, col)) {
                     Piece whitePiece = new Piece(Piece.Color.WHITE, row, col);
-                    board[row][col] = whitePiece;
+                    putPiece(row, col, whitePiece);
                     whitePiecesCount++;
                 }
             }
@@ -136,11 +126,34 @@ public class Board{
         return board[row][col];
     }
 
+    //Writes a square and keeps the occupancy masks in step; light squares never hold pieces in play
+    private void putPiece(int row, int col, Piece piece) {
+        board[row][col] = piece;
+        int square = BitBoard.toSquare(row, col);
+        if (square < 0) {
+            return;
+        }
+        int bit = 1 << square;
+        whiteMask &= ~bit;
+        blackMask &= ~bit;
+        kingMask &= ~bit;
+        if (piece != null) {
+            if (piece.isWhite()) {
+                whiteMask |= bit;
+            } else {
+                blackMask |= bit;
+            }
+            if (piece.isKing()) {
+                kingMask |= bit;
+            }
+        }
+    }
+
     public void setPieceAt(int row, int col, Piece piece) {
         if (!isValidPosition(row, col)) {
             throw new IllegalArgumentException("Invalid position: (" + row + ", " + col + ")");
         }else{
-            board[row][col] = piece; // Set the piece at the specified position
+            putPiece(row, col, piece); // Set the piece at the specified position
             if (piece != null) {
                 piece.setPosition(row, col); // Update the piece's position
                 
@@ -151,19 +164,20 @@ public class Board{
     {
         Piece removedPiece = getPieceAt(row,col);
         if(removedPiece !=null){
-            board[row][col] = null;
+            putPiece(row, col, null);
             updatePieceCount(removedPiece, false); // Decrease the piece count
         }
         return removedPiece;
     }
     public void movePiece(int fromRow, int fromCol, int toRow, int toCol) {
-    Piece piece = removePiece(fromRow, fromCol);
+    Piece piece = getPieceAt(fromRow, fromCol);
     if (piece != null) {
+        putPiece(fromRow, fromCol, null); // the piece stays on the board, so counts are unchanged
         setPieceAt(toRow, toCol, piece);
         piece.incrementMoveCount();
         
         // Check for promotion
-        if (piece.canBePromoted()) {
+        if (piece.isRegular() && piece.canBePromoted()) {
             promotePiece(piece);
         }
     }
@@ -178,12 +192,15 @@ public class Board{
                 {
                 capturedBlackPieces.add(capturedPiece);
             }
-            updatePieceCount(capturedPiece, false); // Decrease the piece count
         }
     }
     public void promotePiece(Piece piece) {
         if (piece.canBePromoted()) {
             piece.promote();
+            int square = BitBoard.toSquare(piece.getRow(), piece.getCol());
+            if (square >= 0 && board[piece.getRow()][piece.getCol()] == piece) {
+                kingMask |= 1 << square;
+            }
             if (piece.isWhite()) {
                 whiteKingsCount++;
             } else {
@@ -207,30 +224,120 @@ public class Board{
         
     }
 
-    //Board Queries
-    public List<Piece> getAllPieces(Color color) {
-    List<Piece> pieces = new ArrayList<>();
-    for (int row = 0; row < BOARD_SIZE; row++) {
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            Piece piece = getPieceAt(row, col);
-            if (piece != null && piece.getColor() == color) {
-                pieces.add(piece);
+    //In-place move execution. The journal keeps the move packed, which is
+    //all undo needs: the squares, the captured squares and the promotion flag.
+    public void applyMove(Move move) {
+        play(move);
+        history.record(move.toPacked());
+    }
+
+    private void play(Move move) {
+        Piece piece = getPieceAt(move.getFromRow(), move.getFromCol());
+        if (piece == null) {
+            throw new IllegalArgumentException("No piece at (" + move.getFromRow() + ", " + move.getFromCol() + ")");
+        }
+        move.setMovingPiece(piece);
+        for (Point p : move.getCapturePositions()) {
+            capturePiece(p.y, p.x);
+        }
+        boolean wasRegular = piece.isRegular();
+        movePiece(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+        move.setCausesPromotion(wasRegular && piece.isKing());
+
+        moveCount++;
+        lastMovedColor = piece.getColor();
+        move.setTimestamp(System.currentTimeMillis());
+    }
+
+    //Takes back the given move, which must be the last one played
+    public void undoMove(Move move) {
+        long last = history.undo();
+        if (!PackedMove.sameMove(last, move.toPacked())) {
+            history.redo();
+            throw new IllegalArgumentException("Not the last move played: " + move);
+        }
+        unplay(last);
+    }
+
+    private void unplay(long packed) {
+        int to = PackedMove.to(packed);
+        Piece piece = board[BitBoard.rowOf(to)][BitBoard.colOf(to)];
+        if (piece == null) {
+            throw new IllegalStateException("No piece on square " + (to + 1) + " to take back");
+        }
+        if (PackedMove.isPromotion(packed)) {
+            piece.demote();
+            if (piece.isWhite()) {
+                whiteKingsCount--;
+            } else {
+                blackKingsCount--;
             }
         }
+        int from = PackedMove.from(packed);
+        putPiece(BitBoard.rowOf(to), BitBoard.colOf(to), null);
+        setPieceAt(BitBoard.rowOf(from), BitBoard.colOf(from), piece);
+        piece.setMoveCount(piece.getMoveCount() - 1);
+
+        // The captured pieces are the last ones taken; put them back where they were
+        List<Piece> captured = piece.isWhite() ? capturedBlackPieces : capturedWhitePieces;
+        for (int i = Integer.bitCount(PackedMove.captures(packed)); i > 0; i--) {
+            Piece taken = captured.remove(captured.size() - 1);
+            putPiece(taken.getRow(), taken.getCol(), taken);
+            updatePieceCount(taken, true);
+        }
+
+        moveCount--;
+        lastMovedColor = moveCount > 0 ? (piece.isWhite() ? Color.BLACK : Color.WHITE) : null;
+    }
+
+    //Board Queries
+    //Squares (0-31, see BitBoard) holding a piece of the colour; bits can be walked without allocating
+    public int getPieceMask(Color color) {
+        return color == Color.WHITE ? whiteMask : blackMask;
+    }
+
+    public int getKingMask(Color color) {
+        return getPieceMask(color) & kingMask;
+    }
+
+    public int getRegularPieceMask(Color color) {
+        return getPieceMask(color) & ~kingMask;
+    }
+
+    //The piece on a dark square numbered as in BitBoard, or null
+    public Piece getPieceAtSquare(int square) {
+        return board[BitBoard.rowOf(square)][BitBoard.colOf(square)];
+    }
+
+    //Calls the action for each piece of the colour, in square order, without building a list
+    public void forEachPiece(Color color, Consumer<Piece> action) {
+        forEachPiece(getPieceMask(color), action);
+    }
+
+    private void forEachPiece(int mask, Consumer<Piece> action) {
+        while (mask != 0) {
+            int square = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            action.accept(getPieceAtSquare(square));
+        }
+    }
+
+    public List<Piece> getAllPieces(Color color) {
+        return collectPieces(getPieceMask(color));
     }
-    return pieces;
-}
 
     public List<Piece> getAllKings(Color color) {
-        return getAllPieces(color).stream()
-                .filter(Piece::isKing)
-                .collect(Collectors.toList());
+        return collectPieces(getKingMask(color));
     }
 
     public List<Piece> getAllRegularPieces(Color color) {
-        return getAllPieces(color).stream()
-                .filter(Piece::isRegular)
-                .collect(Collectors.toList());
+        return collectPieces(getRegularPieceMask(color));
+    }
+
+    private List<Piece> collectPieces(int mask) {
+        List<Piece> pieces = new ArrayList<>(Integer.bitCount(mask));
+        forEachPiece(mask, pieces::add);
+        return pieces;
     }
 
     public int getPieceCount(Color color) {
@@ -247,112 +354,147 @@ public class Board{
             new ArrayList<>(capturedBlackPieces);
     }
 
-    //Board State Management
-    public void saveState(){
-        BoardState state = new BoardState();
-        state.boardSnapshot = cloneBoardArray();
-        state.whiteCount = whitePiecesCount;
-        state.blackCount = blackPiecesCount;
-        state.whiteKings = whiteKingsCount;
-        state.blackKings = blackKingsCount;
-        state.captuWHITEWhite = new ArrayList<>(captuWhitePieces);
-        state.captuWHITEBlack = new ArrayList<>(captuBlackPieces);
-        
-        moveHistory.push(state);
-    }
+    //Undo/redo history
     public boolean canUndo() {
-        return !moveHistory.isEmpty();
+        return history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history.canRedo();
     }
 
     public void undoLastMove(){
         if (canUndo()) {
-            BoardState previousState = moveHistory.pop();
-            restoreState(previousState);
-            moveCount--; // Decrease move count on undo
+            unplay(history.undo());
         }
     }
-private void restoreState(BoardState state){
-    //restore board
-    for (int row = 0; row < BOARD_SIZE; row++) {
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            board[row][col] = state.boardSnapshot[row][col];
+
+    //Plays the last undone move again; returns it, or null if there is none
+    public Move redoMove() {
+        if (!canRedo()) {
+            return null;
         }
+        Move move = toMove(history.peekRedo());
+        play(move);
+        history.redo();
+        return move;
     }
-    // Restore counters
-    whitePiecesCount = state.whiteCount;
-    blackPiecesCount = state.blackCount;
-    whiteKingsCount = state.whiteKings;
-    blackKingsCount = state.blackKings;
-    
-    // Restore captuWHITE pieces
-    captuWhitePieces.addAll(state.captuWHITEWhite);
-    captuWhitePieces.clear();
-    captuBlackPieces.clear();
-    captuBlackPieces.addAll(state.captuWHITEBlack);
-}
 
-private Piece[][] cloneBoardArray() {
-    Piece[][] clone = new Piece[BOARD_SIZE][BOARD_SIZE];
-    for (int row = 0; row < BOARD_SIZE; row++) {
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            Piece original = board[row][col];
-            clone[row][col] = original != null ? original.clone() : null;
+    //Compact position conversion, straight from the occupancy masks
+    public BitBoard toBitBoard(Color sideToMove) {
+        return new BitBoard(whiteMask, blackMask, kingMask, sideToMove == Color.WHITE);
+    }
+
+    public void setFromBitBoard(BitBoard bits) {
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                board[row][col] = null;
+            }
+        }
+        whiteMask = 0;
+        blackMask = 0;
+        kingMask = 0;
+        whitePiecesCount = 0;
+        blackPiecesCount = 0;
+        whiteKingsCount = 0;
+        blackKingsCount = 0;
+        history.clear(); // the moves led to another position
+
+        int occupied = bits.getOccupied();
+        while (occupied != 0) {
+            int square = Integer.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+
+            int bit = 1 << square;
+            int row = BitBoard.rowOf(square);
+            int col = BitBoard.colOf(square);
+            Piece piece = new Piece((bits.getWhite() & bit) != 0 ? Color.WHITE : Color.BLACK, row, col);
+            if ((bits.getKings() & bit) != 0) {
+                piece.setType(Piece.PieceType.KING);
+            }
+            putPiece(row, col, piece);
+            updatePieceCount(piece, true);
         }
     }
-    return clone;
-}
-    public boolean hasValidMoves(Color color) {
-    List<Piece> pieces = getAllPieces(color);
-    for (Piece piece : pieces) {
-        if (hasValidMovesForPiece(piece)) {
-            return true;
+
+    //Square index helpers (dark squares numbered 0-31, see BitBoard)
+    public static int toIndex(Point p) {
+        return p == null ? -1 : BitBoard.toSquare(p.y, p.x);
+    }
+
+    public static Point toPoint(int index) {
+        if (!isValidIndex(index)) {
+            return new Point(-1, -1);
         }
+        return new Point(BitBoard.colOf(index), BitBoard.rowOf(index));
     }
-    return false;
-}
 
-private boolean hasValidMovesForPiece(Piece piece) {
-    int row = piece.getRow();
-    int col = piece.getCol();
-    
-    // Check all four diagonal directions
-    int[][] directions = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
-    
-    for (int[] dir : directions) {
-        if (piece.canMoveInDirection(dir[0])) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-            
-            // Simple move
-            if (isValidPosition(newRow, newCol) && isEmptySquare(newRow, newCol)) {
-                return true;
-            }
-            
-            // Jump move
-            int jumpRow = row + 2 * dir[0];
-            int jumpCol = col + 2 * dir[1];
-            if (isValidPosition(jumpRow, jumpCol) && 
-                isEmptySquare(jumpRow, jumpCol) &&
-                hasEnemyPiece(newRow, newCol, piece.getColor())) {
-                return true;
-            }
+    public static boolean isValidIndex(int index) {
+        return BitBoard.isValidSquare(index);
+    }
+
+    //Move generation
+    public List<Move> getAllValidMoves(Color color) {
+        BitBoard bits = toBitBoard(color);
+        long[] packed = new long[BitBoard.MAX_MOVES];
+        int count = bits.generateMoves(packed);
+
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(toMove(bits, packed[i]));
         }
+        return moves;
+    }
+
+    public List<Move> getValidMoves(Color color) {
+        return getAllValidMoves(color);
+    }
+
+    // Builds the object-rich Move for a packed move played on this board
+    public Move toMove(long packed) {
+        return toMove(toBitBoard(Color.WHITE), packed);
+    }
+
+    private Move toMove(BitBoard bits, long packed) {
+        int from = PackedMove.from(packed);
+        int to = PackedMove.to(packed);
+        Piece movingPiece = board[BitBoard.rowOf(from)][BitBoard.colOf(from)];
+
+        List<Piece> captured = new ArrayList<>();
+        int captures = PackedMove.captures(packed);
+        while (captures != 0) {
+            int square = Integer.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            captured.add(board[BitBoard.rowOf(square)][BitBoard.colOf(square)]);
+        }
+
+        int fromRow = BitBoard.rowOf(from);
+        int fromCol = BitBoard.colOf(from);
+        int toRow = BitBoard.rowOf(to);
+        int toCol = BitBoard.colOf(to);
+        Move move = captured.isEmpty()
+                ? new Move(fromRow, fromCol, toRow, toCol, movingPiece)
+                : new Move(fromRow, fromCol, toRow, toCol, movingPiece, captured);
+        move.setCausesPromotion(PackedMove.isPromotion(packed));
+        if (!captured.isEmpty()) {
+            move.setMoveSequence(MoveGenerator.getCapturePath(bits, packed)); // one Move per jump sequence
+        }
+        return move;
+    }
+
+    public boolean hasValidMoves(Color color) {
+        return toBitBoard(color).hasMoves(color == Color.WHITE);
     }
-    
-    return false;
-}
 
 public boolean isGameOver() {
-    return getPieceCount(Color.WHITE) == 0 || 
-           getPieceCount(Color.BLACK) == 0 ||
-           !hasValidMoves(Color.WHITE) || 
-           !hasValidMoves(Color.BLACK);
+    return toBitBoard(Color.WHITE).isGameOver();
 }
 
 public Color getWinner() {
-    if (getPieceCount(Color.WHITE) == 0 || !hasValidMoves(Color.WHITE)) {
+    BitBoard bits = toBitBoard(Color.WHITE);
+    if (!bits.hasMoves(true)) {
         return Color.BLACK;
-    } else if (getPieceCount(Color.BLACK) == 0 || !hasValidMoves(Color.BLACK)) {
+    } else if (!bits.hasMoves(false)) {
         return Color.WHITE;
     }
     return null; // Game not over
@@ -370,6 +512,9 @@ public Color getWinner() {
     }
     
     // Clone other attributes
+    clonedBoard.whiteMask = this.whiteMask;
+    clonedBoard.blackMask = this.blackMask;
+    clonedBoard.kingMask = this.kingMask;
     clonedBoard.whitePiecesCount = this.whitePiecesCount;
     clonedBoard.blackPiecesCount = this.blackPiecesCount;
     clonedBoard.whiteKingsCount = this.whiteKingsCount;
@@ -377,9 +522,14 @@ public Color getWinner() {
     clonedBoard.moveCount = this.moveCount;
     clonedBoard.lastMovedColor = this.lastMovedColor;
     
-    // Clone captuWhite pieces
-    clonedBoard.captuWhitePieces.addAll(this.captuWhitePieces);
-    clonedBoard.captuWhitePieces.addAll(this.captuWhitePieces);
+    // Clone captured pieces and the history, so the copy can undo on its own
+    for (Piece captured : this.capturedWhitePieces) {
+        clonedBoard.capturedWhitePieces.add(captured.clone());
+    }
+    for (Piece captured : this.capturedBlackPieces) {
+        clonedBoard.capturedBlackPieces.add(captured.clone());
+    }
+    clonedBoard.history.copyFrom(this.history);
     return clonedBoard;
 }
 
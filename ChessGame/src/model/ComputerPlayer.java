@@ -1,72 +1,104 @@
 package model;
-import java.util.ArrayList;
+import engine.EngineStats;
+import engine.EvalWeights;
+import engine.OpeningBook;
+import engine.ParallelSearch;
+import engine.Ponderer;
+import engine.Search;
+import engine.SearchListener;
+import engine.Tablebase;
+import engine.TranspositionTable;
 import java.util.List;
 import java.util.Random;
+import java.util.function.BooleanSupplier;
 public class ComputerPlayer extends Player {
     private boolean isConnected = false; // Connection status for networked players
     //pick a random move if multiple moves are available
     private final Random random = new Random();
+    public static final long DEFAULT_THINKING_TIME_MILLIS = 1000; // Default difficulty
+    private int maxDepth = Search.MAX_PLY; // Depth limit in plies, reached only if time allows
+    private OpeningBook openingBook = OpeningBook.loadDefault(); // null when there is no book
+    private final EngineStats stats = new EngineStats(); // per-move search counters, logged and shown over JMX
+
     public ComputerPlayer(String name, Piece.Color color){
 
     
         super(name, color);
+        setMaxThinkingTimeMillis(DEFAULT_THINKING_TIME_MILLIS);
+        stats.register(name);
     }
 
     @Override
     public Move makeMove(Board board, List<Move> validMoves) {
-        // Implement AI logic to select a move from validMoves
-        // For now, just return the first valid move as a placeholder
+        return chooseMove(board.toBitBoard(getColor()), validMoves, getThinkingBudgetMillis(), null);
+    }
+
+    // Picks a move for the position without touching the Board, so it can run on an engine thread;
+    // the listener (may be null) gets the search's progress on that thread
+    public Move chooseMove(BitBoard position, List<Move> validMoves, long timeBudgetMillis, SearchListener progress) {
+        return chooseMove(position, validMoves, timeBudgetMillis, progress, () -> false);
+    }
+
+    // As above, for a caller that may cancel the move with cancelMove() from another thread while it is
+    // chosen: cancelled must be true before cancelMove() is called, so a cancel sent before the search
+    // starts is not lost
+    public Move chooseMove(BitBoard position, List<Move> validMoves, long timeBudgetMillis, SearchListener progress,
+            BooleanSupplier cancelled) {
         if (validMoves.isEmpty()) {
             return null; // No valid moves available
         }
-        Move bestMove = null;
-        int bestValue = Integer.MIN_VALUE;
-        for (Move move : validMoves) {
-            Board boardCopy = board.clone(); // Assume Board has a clone method
-            boardCopy.applyMove(move); // Assume Board has an applyMove method
-            int value = minimax(Board boardCopy,int searchDepth-1, false);
-            if (value > bestValue) {
-                bestValue = value;
-                bestMove = move;
+        // A ponder hit has searched this position already
+        long ponderMove = ponderer.finish(position, timeBudgetMillis);
+        // Book moves are played at once, without searching
+        if (openingBook != null) {
+            Move bookMove = findMove(validMoves, openingBook.pickMove(position, random));
+            if (bookMove != null) {
+                record("book", bookMove, false, timeBudgetMillis);
+                return bookMove;
             }
-        
         }
-        return bestMove != null ? bestMove : validMoves.get(0);
-    }
-    private int minimax(Board baord, int depth, boolean isMaximizing) {
-        if (depth == 0) {
-            return evaluateBoard(baord);
+        if (ponderMove != PackedMove.NONE) {
+            Move pondered = findMove(validMoves, ponderMove);
+            if (pondered != null) {
+                record("ponder", pondered, true, timeBudgetMillis);
+                return pondered;
+            }
         }
-        List<Move> validMoves = baord.getAllValidMoves(getColor());
-        if (validMoves.isEmpty()) {
-            return evaluateBoard(baord);
+        // Iterative deepening alpha-beta; difficulty is the thinking budget in milliseconds
+        search.setListener(progress);
+        long bestMove;
+        try {
+            bestMove = search.search(position, timeBudgetMillis, maxDepth, cancelled);
+        } finally {
+            search.setListener(null); // pondering is not reported
         }
-        if (isMaximizing) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : validMoves) {
-                Board boardCopy = baord.clone();
-                boardCopy.applyMove(move);
-                int eval = minimax(boardCopy, depth - 1, false);
-                maxEval = Math.max(maxEval, eval);
-            }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : validMoves) {
-                Board boardCopy = baord.clone();
-                boardCopy.applyMove(move);
-                int eval = minimax(boardCopy, depth - 1, true);
-                minEval = Math.min(minEval, eval);
-            }
-            return minEval;
+        Move chosen = findMove(validMoves, bestMove);
+        if (chosen == null) {
+            chosen = validMoves.get(0);
         }
+        record("search", chosen, true, timeBudgetMillis);
+        return chosen;
     }
 
-    private int evaluateBoard(Board board){
-        //simple evaluation: difference in piece count
-        int myPieces = board.countPieces(getColor());
-        int opponentPieces = board.countPieces(getColor().opposite());
-        return myPieces - opponentPieces;
+    // Logs the move with the counters of the search that found it, if any
+    private void record(String source, Move move, boolean searched, long timeBudgetMillis) {
+        stats.record(getName(), source, PackedMove.toString(move.toPacked()), searched ? search.getStats() : null,
+                timeBudgetMillis, maxDepth, search.getThreadCount());
+    }
+
+    // Counters of the moves played so far; also registered as an MBean under "checkers:type=Engine"
+    public EngineStats getStats() {
+        return stats;
+    }
+
+    // Maps the packed move chosen by the search back to the caller's Move object
+    private Move findMove(List<Move> validMoves, long packed) {
+        for (Move move : validMoves) {
+            if (PackedMove.sameMove(move.toPacked(), packed)) {
+                return move;
+            }
+        }
+        return null;
     }
 
 
@@ -75,24 +107,127 @@ public class ComputerPlayer extends Player {
     public boolean isReady() {
         return true; // AI is always ready
     }
-    private int searchDepth =3; // Depth for AI search, can be adjusted for difficulty
+    // Reused for every move, allocates nothing per node; threads share one transposition table
+    private ParallelSearch search = new ParallelSearch(1, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    // Thinks on the opponent's time with the same search, so both fill one table
+    private Ponderer ponderer = new Ponderer(search);
+    private boolean ponderingEnabled = true;
+
+    // Starts searching the position after the opponent's most likely reply; call once this player has moved.
+    // The position must carry the game's history (see BitBoard.copyFrom) for pondering to see repetitions
+    public void startPondering(BitBoard position) {
+        if (ponderingEnabled) {
+            ponderer.start(position, maxDepth);
+        }
+    }
+
+    // Stops pondering without using the result, e.g. when the game is reset or a move is undone
+    public void stopPondering() {
+        ponderer.cancel();
+    }
+
+    public void setPonderingEnabled(boolean ponderingEnabled) {
+        this.ponderingEnabled = ponderingEnabled;
+        if (!ponderingEnabled) {
+            ponderer.cancel();
+        }
+    }
+
+    public boolean isPonderingEnabled() {
+        return ponderingEnabled;
+    }
+
+    // Resizes the transposition table; the cached results are discarded
+    public void setHashSizeMb(int sizeMb) {
+        int threads = search.getThreadCount();
+        ponderer.shutdown();
+        search.shutdown();
+        Tablebase tablebase = search.getTablebase();
+        DrawRules drawRules = search.getDrawRules();
+        search = new ParallelSearch(threads, new TranspositionTable(sizeMb), search.getWeights());
+        search.setTablebase(tablebase);
+        search.setDrawRules(drawRules);
+        ponderer = new Ponderer(search);
+    }
+
+    // Changes the evaluation weights, e.g. ones loaded with EvalWeights.load
+    public void setEvalWeights(EvalWeights weights) {
+        search.setWeights(weights);
+    }
+
+    public EvalWeights getEvalWeights() {
+        return search.getWeights();
+    }
+
+    // Plays endgames perfectly from tablebases opened with Tablebase.open; null turns them off
+    public void setTablebase(Tablebase tablebase) {
+        search.setTablebase(tablebase);
+    }
+
+    public Tablebase getTablebase() {
+        return search.getTablebase();
+    }
+
+    // Makes the search score repetitions and no-progress positions as the game will (see GameController)
+    public void setDrawRules(DrawRules drawRules) {
+        search.setDrawRules(drawRules);
+    }
+
+    public DrawRules getDrawRules() {
+        return search.getDrawRules();
+    }
+
+    // Plays from the given opening book while in book; null turns the book off
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    // Limits the search depth, e.g. for weaker levels or fixed-depth benchmarks
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1: " + maxDepth);
+        }
+        this.maxDepth = Math.min(maxDepth, Search.MAX_PLY);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    // Sets how many threads search in parallel (Lazy-SMP)
+    public void setThreads(int threads) {
+        TranspositionTable table = search.getTable();
+        ponderer.shutdown();
+        search.shutdown();
+        Tablebase tablebase = search.getTablebase();
+        DrawRules drawRules = search.getDrawRules();
+        search = new ParallelSearch(threads, table, search.getWeights());
+        search.setTablebase(tablebase);
+        search.setDrawRules(drawRules);
+        ponderer = new Ponderer(search);
+    }
 
     @Override
     public void initialize() {
-        // Initialization logic for AI player if needed  
-        // Reset or initialize AI state if needed
-        // For example: reset any cached board analysis, clear move history, etc.
-        // This is a good place to prepare the AI for a new game.
+        // Forget the previous game's cached positions
+        ponderer.cancel();
+        search.getTable().clear();
     }
 
     @Override
     public void cleanup() {
-        // Cleanup resources if needed
+        ponderer.shutdown();
+        search.shutdown(); // Release the helper search threads
+        stats.unregister();
     }
 
     @Override
     public void cancelMove() {
-        // AI-specific cancel move logic if needed
+        search.stop(); // The search returns its best move so far; callers that cancelled ignore it
     }
 
     @Override
@@ -0,0 +1,83 @@
+package model;
+
+/**
+ * The {@code DrawRules} class holds the rules that end a game as a draw
+ * even though both sides can still move:
+ * - repetition: the same position, with the same side to move, occurs for
+ *   the given number of times (three by default)
+ * - no progress: the given number of plies is played with kings only,
+ *   without any capture or man move (80 by default, 40 moves per side)
+ *
+ * Both are judged from the move journal of a {@link BitBoard}, so the board
+ * must have been reached with {@link BitBoard#makeMove(long)} (or copied
+ * from one that was) for them to see the game's history.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class DrawRules {
+
+    /** Threefold repetition, 40 moves per side without progress. */
+    public static final DrawRules STANDARD = new DrawRules(3, 80);
+
+    /** No draws; games end only when a side cannot move. */
+    public static final DrawRules NONE = new DrawRules(0, 0);
+
+    private final int repetitions;
+    private final int noProgressPlies;
+
+    /**
+     * Creates draw rules
+     *
+     * @param repetitions     occurrences of a position that draw, at least 2, or 0 for none.
+     * @param noProgressPlies quiet plies that draw, or 0 for no limit.
+     */
+    public DrawRules(int repetitions, int noProgressPlies) {
+        if (repetitions != 0 && repetitions < 2) {
+            throw new IllegalArgumentException("Repetitions must be 0 or at least 2: " + repetitions);
+        }
+        if (noProgressPlies < 0) {
+            throw new IllegalArgumentException("No-progress plies must not be negative: " + noProgressPlies);
+        }
+        this.repetitions = repetitions;
+        this.noProgressPlies = noProgressPlies;
+    }
+
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public int getNoProgressPlies() {
+        return noProgressPlies;
+    }
+
+    // ========== RULES ==========
+
+    /**
+     * Checks if the game is drawn in the board's position
+     */
+    public boolean isDraw(BitBoard board) {
+        return isNoProgressDraw(board)
+                || repetitions != 0 && board.countRepetitions() + 1 >= repetitions;
+    }
+
+    /**
+     * Checks if a search should score the position as a draw. A single
+     * repetition is enough there: whatever the side to move could do from
+     * the repeated position it could have done the first time, so if the
+     * cycle is the best line both sides have, it goes on until the rule
+     * applies.
+     */
+    public boolean isDrawInSearch(BitBoard board) {
+        return isNoProgressDraw(board) || repetitions != 0 && board.isRepetition();
+    }
+
+    private boolean isNoProgressDraw(BitBoard board) {
+        return noProgressPlies != 0 && board.getQuietPlies() >= noProgressPlies;
+    }
+
+    @Override
+    public String toString() {
+        return "DrawRules[repetitions=" + repetitions + ", noProgressPlies=" + noProgressPlies + "]";
+    }
+}
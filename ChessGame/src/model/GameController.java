@@ -1,14 +1,36 @@
 package model;
 
+import engine.SearchListener;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GameController {
     private Board board;
+    private BitBoard position; // the same game with its position history, for the draw rules
+    private DrawRules drawRules = DrawRules.STANDARD;
     private HumanPlayer humanPlayer;
     private ComputerPlayer computerPlayer;
     private Player currentPlayer;
     private boolean gameRunning;
     private GameState gameState;
+    // Runs the computer's searches, so the caller (the Swing EDT) never waits for them
+    private final ExecutorService engineExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<Move> pendingMove; // the computer's move being searched, if any
+
+    // What the UI keeps asking about the position, worked out once per position (see refreshPosition)
+    private int positionVersion;          // bumped by every change of position
+    private int cachedVersion = -1;
+    private List<Move> cachedValidMoves;  // of the side to move, empty once the game is over
+    private boolean cachedGameOver;
+    private Piece.Color cachedWinner;     // null while playing and on a draw
 
     public enum GameState {
         PLAYING,
@@ -22,6 +44,7 @@ public class GameController {
 
     private void initializeGame() {
         board = new Board();
+        position = board.toBitBoard(Piece.Color.WHITE);
         humanPlayer = new HumanPlayer("Player", Piece.Color.WHITE);
         computerPlayer = new ComputerPlayer("Computer", Piece.Color.BLACK);
         currentPlayer = humanPlayer;
@@ -30,7 +53,11 @@ public class GameController {
     }
 
     public void startNewGame() {
+        cancelComputerMove();
+        computerPlayer.stopPondering();
         board.resetBoard();
+        position = board.toBitBoard(Piece.Color.WHITE);
+        positionVersion++;
         currentPlayer = humanPlayer;
         gameRunning = true;
         gameState = GameState.PLAYING;
@@ -56,8 +83,37 @@ public class GameController {
         return currentPlayer == humanPlayer;
     }
 
+    // The legal moves of the side to move; generated once per position, so it is cheap to ask again
     public List<Move> getValidMoves() {
-        return board.getValidMoves(currentPlayer.getColor());
+        refreshPosition();
+        return cachedValidMoves;
+    }
+
+    // Number of legal moves of the side to move
+    public int getMobility() {
+        refreshPosition();
+        return cachedValidMoves.size();
+    }
+
+    // Checks if the position ends the game: a side cannot move, or the draw rules apply
+    public boolean isPositionTerminal() {
+        refreshPosition();
+        return cachedGameOver;
+    }
+
+    private void refreshPosition() {
+        if (cachedVersion == positionVersion) {
+            return;
+        }
+        boolean whiteCanMove = position.hasMoves(true);
+        boolean blackCanMove = position.hasMoves(false);
+        cachedWinner = !whiteCanMove ? Piece.Color.BLACK : !blackCanMove ? Piece.Color.WHITE : null;
+        cachedGameOver = cachedWinner != null || drawRules.isDraw(position);
+        Piece.Color toMove = position.isWhiteToMove() ? Piece.Color.WHITE : Piece.Color.BLACK;
+        cachedValidMoves = cachedGameOver
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(board.getValidMoves(toMove));
+        cachedVersion = positionVersion;
     }
 
     public boolean makeMove(Move move) {
@@ -67,9 +123,11 @@ public class GameController {
 
         // Apply the move
         board.applyMove(move);
+        position.makeMove(move.toPacked());
+        positionVersion++;
         
-        // Check for game over
-        if (board.isGameOver()) {
+        // Check for game over, including draws by repetition or no progress
+        if (isPositionTerminal()) {
             gameRunning = false;
             gameState = GameState.GAME_OVER;
             return true;
@@ -77,7 +135,11 @@ public class GameController {
 
         // Switch players
         currentPlayer = (currentPlayer == humanPlayer) ? computerPlayer : humanPlayer;
-        
+
+        // Think on the human's time
+        if (currentPlayer == humanPlayer) {
+            computerPlayer.startPondering(snapshot());
+        }
         return true;
     }
 
@@ -86,30 +148,173 @@ public class GameController {
             return;
         }
 
-        List<Move> validMoves = board.getValidMoves(computerPlayer.getColor());
+        List<Move> validMoves = getValidMoves();
         if (!validMoves.isEmpty()) {
-            Move computerMove = computerPlayer.makeMove(board, validMoves);
+            Move computerMove = computerPlayer.chooseMove(snapshot(), validMoves,
+                    computerPlayer.getThinkingBudgetMillis(), null);
             if (computerMove != null) {
                 makeMove(computerMove);
             }
         }
     }
 
+    /**
+     * Asks the computer for its move without waiting for it. The search runs
+     * on the engine thread; the returned future completes there with the
+     * chosen move (null if it is not the computer's turn). The move is not
+     * played: pass it to {@link #applyRequestedMove} on the thread that owns
+     * the board. Cancelling the future stops the search.
+     *
+     * @param timeBudgetMillis the time the computer may think.
+     * @param progress         told about each completed search depth on the engine thread, or null.
+     */
+    public synchronized CompletableFuture<Move> requestMove(long timeBudgetMillis, SearchListener progress) {
+        cancelComputerMove();
+        if (!gameRunning || currentPlayer != computerPlayer) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Snapshot the position here; the engine thread never reads the Board
+        BitBoard snapshot = snapshot();
+        List<Move> validMoves = getValidMoves(); // immutable, safe to hand to the engine thread
+        CompletableFuture<Move> request = new CompletableFuture<>();
+        request.whenComplete((move, error) -> {
+            if (error instanceof CancellationException) {
+                computerPlayer.cancelMove();
+            }
+        });
+        engineExecutor.execute(() -> {
+            if (request.isDone()) {
+                return; // cancelled before it started
+            }
+            try {
+                request.complete(computerPlayer.chooseMove(snapshot, validMoves, timeBudgetMillis, progress,
+                        request::isDone));
+            } catch (RuntimeException e) {
+                request.completeExceptionally(e);
+            }
+        });
+        pendingMove = request;
+        return request;
+    }
+
+    // A copy of the position with its history, so the search sees repetitions of earlier positions
+    private BitBoard snapshot() {
+        BitBoard snapshot = new BitBoard();
+        snapshot.copyFrom(position);
+        return snapshot;
+    }
+
+    public CompletableFuture<Move> requestMove(long timeBudgetMillis) {
+        return requestMove(timeBudgetMillis, null);
+    }
+
+    /**
+     * Plays a move delivered by {@link #requestMove}, unless the request has
+     * been cancelled or replaced since (e.g. by a new game or an undo)
+     *
+     * @return true if the move was played.
+     */
+    public synchronized boolean applyRequestedMove(CompletableFuture<Move> request, Move move) {
+        if (request != pendingMove || move == null) {
+            return false;
+        }
+        pendingMove = null;
+        return makeMove(move);
+    }
+
+    /**
+     * Stops the computer's pending search, if any; its move will not be played
+     */
+    public synchronized void cancelComputerMove() {
+        if (pendingMove != null) {
+            pendingMove.cancel(false);
+            pendingMove = null;
+        }
+    }
+
+    public synchronized boolean isComputerThinking() {
+        return pendingMove != null && !pendingMove.isDone();
+    }
+
+    public ComputerPlayer getComputerPlayer() {
+        return computerPlayer;
+    }
+
     public boolean canUndo() {
         return board.canUndo();
     }
 
+    // Takes back the last move, and the human move before it if that was the computer's reply, so the
+    // human is to move again. If it leaves the computer to move, the caller must ask it for a move.
     public void undoMove() {
         if (canUndo()) {
-            board.undoLastMove();
-            // Switch back to previous player
-            currentPlayer = (currentPlayer == humanPlayer) ? computerPlayer : humanPlayer;
+            cancelComputerMove();
+            computerPlayer.stopPondering();
+            undoPly();
+            if (currentPlayer == computerPlayer && canUndo()) {
+                undoPly();
+            }
+            if (currentPlayer == humanPlayer) {
+                computerPlayer.startPondering(snapshot());
+            }
         }
     }
 
+    private void undoPly() {
+        board.undoLastMove();
+        position.unmakeMove();
+        positionVersion++;
+        // Switch back to previous player
+        currentPlayer = (currentPlayer == humanPlayer) ? computerPlayer : humanPlayer;
+        gameRunning = true;
+        gameState = GameState.PLAYING;
+    }
+
+    public boolean canRedo() {
+        return board.canRedo();
+    }
+
+    // Plays the last undone move again, and the computer's reply with it if that was undone too, so the
+    // human is to move again. If it leaves the computer to move, the caller must ask it for a move.
+    public void redoMove() {
+        if (canRedo()) {
+            cancelComputerMove();
+            computerPlayer.stopPondering();
+            redoPly();
+            if (gameRunning && currentPlayer == computerPlayer && canRedo()) {
+                redoPly();
+            }
+            if (gameRunning && currentPlayer == humanPlayer) {
+                computerPlayer.startPondering(snapshot());
+            }
+        }
+    }
+
+    private void redoPly() {
+        position.makeMove(board.redoMove().toPacked());
+        positionVersion++;
+        currentPlayer = (currentPlayer == humanPlayer) ? computerPlayer : humanPlayer;
+        if (isPositionTerminal()) {
+            gameRunning = false;
+            gameState = GameState.GAME_OVER;
+        }
+    }
+
+    // Sets when a game is drawn although both sides can move; the computer searches with the same rules
+    public void setDrawRules(DrawRules drawRules) {
+        this.drawRules = drawRules;
+        computerPlayer.setDrawRules(drawRules);
+        positionVersion++; // the position may now be drawn, or no longer
+    }
+
+    public DrawRules getDrawRules() {
+        return drawRules;
+    }
+
     public Piece.Color getWinner() {
         if (gameState == GameState.GAME_OVER) {
-            return board.getWinner();
+            refreshPosition();
+            return cachedWinner;
         }
         return null;
     }
@@ -2,6 +2,7 @@ package model;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import model.Piece.Color;
@@ -14,6 +15,9 @@ import model.Piece.Color;
  * - Promotion information
  * - Move evaluation weight
  * 
+ * The engine works on {@link PackedMove} values instead; a {@code Move} is
+ * only built where the UI or the API needs one.
+ * 
  * @author Ilias Bahou
  * @version 2.0
  */
@@ -44,11 +48,7 @@ public class Move {
     
     // ========== ATTRIBUTES ==========
     
-    // Position information (legacy compatibility)
-    private byte startIndex;
-    private byte endIndex;
-    
-    // Enhanced position information
+    // Position information; the legacy square indices are derived from it
     private int fromRow;
     private int fromCol;
     private int toRow;
@@ -58,7 +58,7 @@ public class Move {
     private MoveType moveType;
     private double weight;
     
-    // Captured pieces information
+    // Captured pieces information (created on first use, most moves capture nothing)
     private List<Piece> capturedPieces;
     private List<Point> capturePositions;
     
@@ -67,11 +67,11 @@ public class Move {
     private boolean causesPromotion;
     private Piece promotedPiece;
     
-    // Move sequence (for multiple jumps)
+    // Move sequence (for multiple jumps, created on first use)
     private List<Point> moveSequence;
     
     // Game state information
-    private long timestamp;
+    private long timestamp; // set when the move is played on a Board
     private boolean isValid;
     
     // ========== CONSTRUCTORS ==========
@@ -80,18 +80,15 @@ public class Move {
      * Legacy constructor for compatibility
      */
     public Move(int startIndex, int endIndex) {
-        this.startIndex = (byte) startIndex;
-        this.endIndex = (byte) endIndex;
-        this.weight = WEIGHT_DEFAULT;
-        initializeFromIndices();
+        setStartIndex(startIndex);
+        setEndIndex(endIndex);
+        initializeDefaults();
     }
     
     /**
      * Legacy constructor using Points
      */
     public Move(Point start, Point end) {
-        this.startIndex = (byte) Board.toIndex(start);
-        this.endIndex = (byte) Board.toIndex(end);
         this.fromRow = start.y;
         this.fromCol = start.x;
         this.toRow = end.y;
@@ -107,11 +104,6 @@ public class Move {
         this.fromCol = fromCol;
         this.toRow = toRow;
         this.toCol = toCol;
-        
-        // Calculate indices for legacy compatibility
-        this.startIndex = (byte) Board.toIndex(new Point(fromCol, fromRow));
-        this.endIndex = (byte) Board.toIndex(new Point(toCol, toRow));
-        
         initializeDefaults();
     }
     
@@ -137,23 +129,9 @@ public class Move {
     
     // ========== INITIALIZATION METHODS ==========
     
-    private void initializeFromIndices() {
-        Point start = Board.toPoint(startIndex);
-        Point end = Board.toPoint(endIndex);
-        this.fromRow = start.y;
-        this.fromCol = start.x;
-        this.toRow = end.y;
-        this.toCol = end.x;
-        initializeDefaults();
-    }
-    
     private void initializeDefaults() {
         this.weight = WEIGHT_DEFAULT;
         this.moveType = MoveType.SIMPLE;
-        this.capturedPieces = new ArrayList<>();
-        this.capturePositions = new ArrayList<>();
-        this.moveSequence = new ArrayList<>();
-        this.timestamp = System.currentTimeMillis();
         this.isValid = true;
         this.causesPromotion = false;
     }
@@ -172,7 +150,7 @@ public class Move {
     }
     
     private void calculateCapturePositions() {
-        capturePositions.clear();
+        capturePositions = new ArrayList<>(capturedPieces.size());
         for (Piece piece : capturedPieces) {
             capturePositions.add(new Point(piece.getCol(), piece.getRow()));
         }
@@ -181,25 +159,23 @@ public class Move {
     // ========== LEGACY GETTERS/SETTERS (for compatibility) ==========
     
     public int getStartIndex() {
-        return startIndex;
+        return BitBoard.toSquare(fromRow, fromCol);
     }
     
     public void setStartIndex(int startIndex) {
-        this.startIndex = (byte) startIndex;
-        Point start = Board.toPoint(startIndex);
-        this.fromRow = start.y;
-        this.fromCol = start.x;
+        boolean valid = Board.isValidIndex(startIndex);
+        this.fromRow = valid ? BitBoard.rowOf(startIndex) : -1;
+        this.fromCol = valid ? BitBoard.colOf(startIndex) : -1;
     }
     
     public int getEndIndex() {
-        return endIndex;
+        return BitBoard.toSquare(toRow, toCol);
     }
     
     public void setEndIndex(int endIndex) {
-        this.endIndex = (byte) endIndex;
-        Point end = Board.toPoint(endIndex);
-        this.toRow = end.y;
-        this.toCol = end.x;
+        boolean valid = Board.isValidIndex(endIndex);
+        this.toRow = valid ? BitBoard.rowOf(endIndex) : -1;
+        this.toCol = valid ? BitBoard.colOf(endIndex) : -1;
     }
     
     public Point getStart() {
@@ -209,7 +185,6 @@ public class Move {
     public void setStart(Point start) {
         this.fromRow = start.y;
         this.fromCol = start.x;
-        this.startIndex = (byte) Board.toIndex(start);
     }
     
     public Point getEnd() {
@@ -219,7 +194,6 @@ public class Move {
     public void setEnd(Point end) {
         this.toRow = end.y;
         this.toCol = end.x;
-        this.endIndex = (byte) Board.toIndex(end);
     }
     
     // ========== ENHANCED GETTERS/SETTERS ==========
@@ -232,13 +206,11 @@ public class Move {
     public void setFromPosition(int row, int col) {
         this.fromRow = row;
         this.fromCol = col;
-        this.startIndex = (byte) Board.toIndex(new Point(col, row));
     }
     
     public void setToPosition(int row, int col) {
         this.toRow = row;
         this.toCol = col;
-        this.endIndex = (byte) Board.toIndex(new Point(col, row));
     }
     
     public MoveType getMoveType() { return moveType; }
@@ -248,18 +220,22 @@ public class Move {
     public void setWeight(double weight) { this.weight = weight; }
     public void changeWeight(double delta) { this.weight += delta; }
     
-    public List<Piece> getCapturedPieces() { return new ArrayList<>(capturedPieces); }
+    public List<Piece> getCapturedPieces() { return copyOf(capturedPieces); }
     public void setCapturedPieces(List<Piece> capturedPieces) {
         this.capturedPieces = new ArrayList<>(capturedPieces);
         calculateCapturePositions();
     }
     
     public void addCapturedPiece(Piece piece) {
+        if (capturedPieces == null) {
+            capturedPieces = new ArrayList<>();
+            capturePositions = new ArrayList<>();
+        }
         this.capturedPieces.add(piece);
         this.capturePositions.add(new Point(piece.getCol(), piece.getRow()));
     }
     
-    public List<Point> getCapturePositions() { return new ArrayList<>(capturePositions); }
+    public List<Point> getCapturePositions() { return copyOf(capturePositions); }
     
     public Piece getMovingPiece() { return movingPiece; }
     public void setMovingPiece(Piece movingPiece) { this.movingPiece = movingPiece; }
@@ -270,12 +246,13 @@ public class Move {
     public Piece getPromotedPiece() { return promotedPiece; }
     public void setPromotedPiece(Piece promotedPiece) { this.promotedPiece = promotedPiece; }
     
-    public List<Point> getMoveSequence() { return new ArrayList<>(moveSequence); }
+    public List<Point> getMoveSequence() { return copyOf(moveSequence); }
     public void setMoveSequence(List<Point> moveSequence) {
         this.moveSequence = new ArrayList<>(moveSequence);
     }
     
     public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
     public boolean isValid() { return isValid; }
     public void setValid(boolean valid) { this.isValid = valid; }
     
@@ -285,7 +262,7 @@ public class Move {
      * Checks if this is a capture move
      */
     public boolean isCapture() {
-        return !capturedPieces.isEmpty();
+        return capturedPieces != null && !capturedPieces.isEmpty();
     }
     
     /**
@@ -306,7 +283,7 @@ public class Move {
      * Gets the number of pieces captured
      */
     public int getCaptureCount() {
-        return capturedPieces.size();
+        return capturedPieces == null ? 0 : capturedPieces.size();
     }
     
     /**
@@ -371,12 +348,12 @@ public class Move {
         Move cloned = new Move(fromRow, fromCol, toRow, toCol);
         cloned.moveType = this.moveType;
         cloned.weight = this.weight;
-        cloned.capturedPieces = new ArrayList<>(this.capturedPieces);
-        cloned.capturePositions = new ArrayList<>(this.capturePositions);
+        cloned.capturedPieces = this.capturedPieces == null ? null : new ArrayList<>(this.capturedPieces);
+        cloned.capturePositions = this.capturePositions == null ? null : new ArrayList<>(this.capturePositions);
         cloned.movingPiece = this.movingPiece;
         cloned.causesPromotion = this.causesPromotion;
         cloned.promotedPiece = this.promotedPiece;
-        cloned.moveSequence = new ArrayList<>(this.moveSequence);
+        cloned.moveSequence = this.moveSequence == null ? null : new ArrayList<>(this.moveSequence);
         cloned.isValid = this.isValid;
         return cloned;
     }
@@ -388,7 +365,7 @@ public class Move {
         Move reversed = new Move(toRow, toCol, fromRow, fromCol);
         reversed.moveType = this.moveType;
         reversed.weight = -this.weight; // Negative weight for reverse
-        reversed.capturedPieces = new ArrayList<>(this.capturedPieces);
+        reversed.capturedPieces = this.capturedPieces == null ? null : new ArrayList<>(this.capturedPieces);
         reversed.movingPiece = this.movingPiece;
         return reversed;
     }
@@ -405,12 +382,20 @@ public class Move {
                fromCol == move.fromCol &&
                toRow == move.toRow &&
                toCol == move.toCol &&
-               Objects.equals(capturedPieces, move.capturedPieces);
+               Objects.equals(capturedOrEmpty(), move.capturedOrEmpty());
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(fromRow, fromCol, toRow, toCol, capturedPieces);
+        return Objects.hash(fromRow, fromCol, toRow, toCol, capturedOrEmpty());
+    }
+    
+    private List<Piece> capturedOrEmpty() {
+        return capturedPieces == null ? Collections.emptyList() : capturedPieces;
+    }
+    
+    private static <T> List<T> copyOf(List<T> list) {
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
     }
     
     /**
@@ -420,6 +405,22 @@ public class Move {
         return Double.compare(this.weight, other.weight);
     }
     
+    // ========== PACKED FORM ==========
+    
+    /**
+     * Packs this move for the engine (see {@link PackedMove}). The inverse
+     * is {@link Board#toMove(long)}.
+     */
+    public long toPacked() {
+        int captures = 0;
+        if (capturePositions != null) {
+            for (Point p : capturePositions) {
+                captures |= 1 << Board.toIndex(p);
+            }
+        }
+        return PackedMove.encode(getStartIndex(), getEndIndex(), captures, causesPromotion);
+    }
+    
     // ========== STRING REPRESENTATION ==========
     
     @Override
@@ -0,0 +1,116 @@
+package model;
+
+/**
+ * The {@code MoveJournal} class is the undo/redo history of a {@link Board}.
+ * Each ply is stored as its {@link PackedMove}, which is all the board needs
+ * to take the move back: the squares moved between, the captured squares
+ * and whether the piece was promoted. The captured pieces themselves are
+ * the last ones in the board's captured lists.
+ *
+ * The moves live in a fixed ring buffer, so recording, undoing and redoing
+ * are O(1) and allocate nothing. Once the buffer is full the oldest move is
+ * forgotten and can no longer be undone. Undone moves stay in the buffer
+ * for redo until a new move is recorded.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+final class MoveJournal {
+
+    /** Plies kept by default, far more than any game lasts. */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final long[] moves;
+    private int start;  // index of the oldest move kept
+    private int played; // moves that can be undone
+    private int total;  // played plus the undone moves that can be redone
+
+    MoveJournal(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.moves = new long[capacity];
+    }
+
+    MoveJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Records a played move; the moves that could be redone are dropped
+     */
+    void record(long move) {
+        if (played == moves.length) {
+            start = (start + 1) % moves.length; // forget the oldest
+            played--;
+        }
+        moves[(start + played) % moves.length] = move;
+        played++;
+        total = played;
+    }
+
+    boolean canUndo() {
+        return played > 0;
+    }
+
+    boolean canRedo() {
+        return total > played;
+    }
+
+    /**
+     * Steps back over the last played move
+     *
+     * @return the move to take back.
+     * @throws IllegalStateException if there is none.
+     */
+    long undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("No move to undo");
+        }
+        played--;
+        return moves[(start + played) % moves.length];
+    }
+
+    /**
+     * The move {@link #redo()} would step over, without stepping
+     */
+    long peekRedo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("No move to redo");
+        }
+        return moves[(start + played) % moves.length];
+    }
+
+    /**
+     * Steps forward over the last undone move
+     *
+     * @return the move to play again.
+     * @throws IllegalStateException if there is none.
+     */
+    long redo() {
+        long move = peekRedo();
+        played++;
+        return move;
+    }
+
+    void clear() {
+        start = 0;
+        played = 0;
+        total = 0;
+    }
+
+    void copyFrom(MoveJournal other) {
+        if (other.moves.length != moves.length) {
+            throw new IllegalArgumentException("Journals differ in capacity");
+        }
+        System.arraycopy(other.moves, 0, moves, 0, moves.length);
+        start = other.start;
+        played = other.played;
+        total = other.total;
+    }
+
+    /** Moves that can be undone */
+    int size() {
+        return played;
+    }
+}
@@ -0,0 +1,86 @@
+package model;
+
+/**
+ * The {@code PackedMove} class encodes a move into a single {@code long} so
+ * that the move generator and the search can handle millions of moves
+ * without allocating objects. The object-rich {@link Move} is only built at
+ * the UI/API boundary (see {@link Board#toMove(long)} and
+ * {@link Move#toPacked()}).
+ *
+ * Layout:
+ * - bits 0-4   origin square (numbered as in {@link BitBoard})
+ * - bits 5-9   destination square
+ * - bit 10     promotion flag (a man reaches the king row)
+ * - bits 32-63 mask of the captured squares
+ *
+ * The value 0 is never a legal move (its origin and destination are equal)
+ * and is used to mean "no move".
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class PackedMove {
+
+    /** No move. */
+    public static final long NONE = 0;
+
+    /** Bits holding the origin and destination only. */
+    public static final long SQUARES_MASK = 0x3FF;
+
+    /** Flag set on moves that crown a man. */
+    public static final long PROMOTION = 1L << 10;
+
+    private PackedMove() {
+    }
+
+    // ========== ENCODING ==========
+
+    public static long encode(int from, int to, int captures, boolean promotion) {
+        return from | (to << 5) | (promotion ? PROMOTION : 0) | ((long) captures << 32);
+    }
+
+    public static long encode(int from, int to, int captures) {
+        return encode(from, to, captures, false);
+    }
+
+    // ========== DECODING ==========
+
+    public static int from(long move) {
+        return (int) move & 0x1F;
+    }
+
+    public static int to(long move) {
+        return ((int) move >>> 5) & 0x1F;
+    }
+
+    public static int captures(long move) {
+        return (int) (move >>> 32);
+    }
+
+    public static int captureCount(long move) {
+        return Long.bitCount(move >>> 32);
+    }
+
+    public static boolean isCapture(long move) {
+        return (move >>> 32) != 0;
+    }
+
+    public static boolean isPromotion(long move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    /**
+     * Checks if two packed moves play the same jump or step, ignoring flags
+     */
+    public static boolean sameMove(long a, long b) {
+        return ((a ^ b) & ~PROMOTION) == 0;
+    }
+
+    /**
+     * Formats a move in standard square numbers (1-32), e.g. {@code 22-18}
+     * or {@code 26x10}
+     */
+    public static String toString(long move) {
+        return (from(move) + 1) + (isCapture(move) ? "x" : "-") + (to(move) + 1);
+    }
+}
@@ -56,8 +56,8 @@ public class Piece {
         this.row = row;
         this.col = col;
     }
-    //public PieceType getType() {return type;}
-    //public void setType(PieceType type) { this.type = type;}
+    public PieceType getType() {return type;}
+    public void setType(PieceType type) { this.type = type;}
     public boolean isSelected() {return isSelected;}
     
     public void setSelected(boolean selected) {this.isSelected = selected;}
@@ -131,7 +131,7 @@ public class Piece {
         if(!isValidPosition(newRow, newCol)){
             return false; // Invalid position
         }
-        if(!isOnDarkSqaure()){
+        if(!isOnDarkSquare()){
             return false; // Can only move to dark squares
         }
         //Calculate the row difference
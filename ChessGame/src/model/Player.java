@@ -50,6 +50,22 @@ public abstract class Player {
     public void setColor(Piece.Color color) {
         this.color = color;
     }
+    // Timing getters and setters
+    public long getMoveTimeoutMillis() {
+        return moveTimeoutMillis;
+    }
+    public void setMoveTimeoutMillis(long moveTimeoutMillis) {
+        this.moveTimeoutMillis = moveTimeoutMillis;
+    }
+    public long getMaxThinkingTimeMillis() {
+        return maxThinkingTimeMillis;
+    }
+    public void setMaxThinkingTimeMillis(long maxThinkingTimeMillis) {
+        this.maxThinkingTimeMillis = maxThinkingTimeMillis;
+    }
+    public long getThinkingBudgetMillis() {
+        return Math.min(maxThinkingTimeMillis, moveTimeoutMillis); // never think past the move timeout
+    }
     public enum PlayerType {
         HUMAN, // Human player
         AI // AI player
@@ -94,7 +110,7 @@ public abstract class Player {
     public void toggleConnection() {
         this.isConnected = !this.isConnected; // Toggle connection status
     }
-    public abstract void makeMove(); // Abstract method for making a move
+    public abstract Move makeMove(Board board, List<Move> validMoves); // Abstract method for making a move
     public abstract boolean isReady(); // Abstract method to check if the player is ready
     public abstract void initialize(); // Abstract method for initializing the player
     public abstract void cleanup(); // Abstract method for cleaning up resources
@@ -0,0 +1,63 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * The {@code Zobrist} class holds the random keys used to hash
+ * {@link BitBoard} positions. A position's key is the XOR of one key per
+ * occupied square (chosen by piece kind) and the side key when black is to
+ * move, so a move updates it with a handful of XORs.
+ *
+ * @author Ilias Bahou
+ * @version 1.0
+ */
+public final class Zobrist {
+
+    /** Piece kinds used to index {@link #PIECE_KEYS}. */
+    public static final int WHITE_MAN = 0;
+    public static final int WHITE_KING = 1;
+    public static final int BLACK_MAN = 2;
+    public static final int BLACK_KING = 3;
+
+    /** One key per piece kind and square. */
+    static final long[][] PIECE_KEYS = new long[4][BitBoard.NUM_SQUARES];
+
+    /** XORed in when black is to move. */
+    static final long SIDE_KEY;
+
+    static {
+        Random random = new Random(0x5EED_C0DEL); // fixed seed keeps keys stable across runs
+        for (int kind = 0; kind < PIECE_KEYS.length; kind++) {
+            for (int square = 0; square < BitBoard.NUM_SQUARES; square++) {
+                PIECE_KEYS[kind][square] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Computes a key from scratch. Boards keep their key up to date
+     * incrementally, so this is only needed when a position is set up.
+     */
+    public static long compute(int white, int black, int kings, boolean whiteToMove) {
+        long key = whiteToMove ? 0 : SIDE_KEY;
+        key ^= xorSquares(PIECE_KEYS[WHITE_MAN], white & ~kings);
+        key ^= xorSquares(PIECE_KEYS[WHITE_KING], white & kings);
+        key ^= xorSquares(PIECE_KEYS[BLACK_MAN], black & ~kings);
+        key ^= xorSquares(PIECE_KEYS[BLACK_KING], black & kings);
+        return key;
+    }
+
+    /** XOR of the keys of every square in the mask */
+    static long xorSquares(long[] keys, int squares) {
+        long key = 0;
+        while (squares != 0) {
+            key ^= keys[Integer.numberOfTrailingZeros(squares)];
+            squares &= squares - 1;
+        }
+        return key;
+    }
+}
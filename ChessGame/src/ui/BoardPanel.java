@@ -5,6 +5,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class BoardPanel extends JPanel {
     private static final int SQUARE_SIZE = 60;
@@ -14,6 +15,9 @@ public class BoardPanel extends JPanel {
     private static final Color HIGHLIGHT_COLOR = new Color(255, 255, 0, 100);
     private static final Color SELECTED_COLOR = new Color(0, 255, 0, 100);
     
+    /** Property fired with the computer's search progress while it thinks. */
+    public static final String ENGINE_PROGRESS = "engineProgress";
+
     private GameController gameController;
     private int selectedRow = -1;
     private int selectedCol = -1;
@@ -97,29 +101,46 @@ public class BoardPanel extends JPanel {
                 
                 // Make computer move if it's computer's turn
                 if (!gameController.isHumanTurn()) {
-                    SwingUtilities.invokeLater(() -> {
-                        gameController.makeComputerMove();
-                        updateValidMoves();
-                        repaint();
-                    });
+                    requestComputerMove();
                 }
             }
         }
     }
     
+    /**
+     * Lets the computer think on the engine thread, so the board keeps
+     * repainting. Progress and the result come back on the EDT; listeners of
+     * the {@value #ENGINE_PROGRESS} property get a description of each
+     * completed search depth, then null once the move has been played.
+     */
+    private void requestComputerMove() {
+        long budget = gameController.getComputerPlayer().getThinkingBudgetMillis();
+        CompletableFuture<Move> request = gameController.requestMove(budget,
+            info -> {
+                String text = String.format("depth %d, score %+d, %s",
+                    info.getDepth(), info.getScore(), info.getPrincipalVariationText());
+                SwingUtilities.invokeLater(() -> firePropertyChange(ENGINE_PROGRESS, null, text));
+            });
+        request.thenAcceptAsync(move -> {
+            gameController.applyRequestedMove(request, move);
+            updateValidMoves();
+            repaint();
+            firePropertyChange(ENGINE_PROGRESS, "", null);
+        }, SwingUtilities::invokeLater);
+    }
+
+    // The controller generates the moves once per position; clicks only filter them
     private void updateValidMoves() {
+        validMoves = gameController.getValidMoves();
         if (selectedRow != -1 && selectedCol != -1) {
-            Board board = gameController.getBoard();
-            Piece selectedPiece = board.getPieceAt(selectedRow, selectedCol);
+            Piece selectedPiece = gameController.getBoard().getPieceAt(selectedRow, selectedCol);
             if (selectedPiece != null) {
-                validMoves = board.getValidMoves(selectedPiece.getColor());
                 highlightedSquares = validMoves.stream()
                     .filter(move -> move.getFromRow() == selectedRow && move.getFromCol() == selectedCol)
                     .map(move -> new int[]{move.getToRow(), move.getToCol()})
                     .toList();
             }
         } else {
-            validMoves = gameController.getValidMoves();
             highlightedSquares = List.of();
         }
     }
@@ -233,4 +254,16 @@ public class BoardPanel extends JPanel {
         updateValidMoves();
         repaint();
     }
+
+    /**
+     * Asks the computer for its move if it is to move, e.g. after a redo
+     * that ended on the computer's turn. Clicks are ignored until it has
+     * played.
+     */
+    public void playComputerTurn() {
+        if (gameController.isGameRunning() && !gameController.isHumanTurn()
+                && !gameController.isComputerThinking()) {
+            requestComputerMove();
+        }
+    }
 }
@@ -13,6 +13,7 @@ public class CheckersGameWindow extends JFrame {
     private JLabel blackPiecesLabel;
     private JButton newGameButton;
     private JButton undoButton;
+    private JButton redoButton;
     
     public CheckersGameWindow() {
         gameController = new GameController();
@@ -30,6 +31,13 @@ public class CheckersGameWindow extends JFrame {
         
         // Create board panel
         boardPanel = new BoardPanel(gameController);
+        boardPanel.addPropertyChangeListener(BoardPanel.ENGINE_PROGRESS, e -> {
+            if (e.getNewValue() == null) {
+                updateDisplay(); // the computer has moved
+            } else {
+                statusLabel.setText("Thinking: " + e.getNewValue());
+            }
+        });
         
         // Create control panel
         JPanel controlPanel = createControlPanel();
@@ -70,12 +78,20 @@ public class CheckersGameWindow extends JFrame {
         undoButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         undoButton.setMaximumSize(new Dimension(120, 30));
         
+        // Redo button
+        redoButton = new JButton("Redo Move");
+        redoButton.addActionListener(e -> redoMove());
+        redoButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        redoButton.setMaximumSize(new Dimension(120, 30));
+        
         // Add some spacing
         panel.add(Box.createVerticalStrut(10));
         panel.add(newGameButton);
         panel.add(Box.createVerticalStrut(10));
         panel.add(undoButton);
         panel.add(Box.createVerticalStrut(10));
+        panel.add(redoButton);
+        panel.add(Box.createVerticalStrut(10));
         
         return panel;
     }
@@ -115,6 +131,7 @@ public class CheckersGameWindow extends JFrame {
         if (gameController.canUndo()) {
             gameController.undoMove();
             updateDisplay();
+            boardPanel.playComputerTurn(); // the undo may have left the computer to move
         } else {
             JOptionPane.showMessageDialog(this, 
                 "No moves to undo!", 
@@ -123,6 +140,14 @@ public class CheckersGameWindow extends JFrame {
         }
     }
     
+    private void redoMove() {
+        if (gameController.canRedo()) {
+            gameController.redoMove();
+            updateDisplay();
+            boardPanel.playComputerTurn(); // the redo may have left the computer to move
+        }
+    }
+    
     private void updateDisplay() {
         // Update status
         statusLabel.setText(gameController.getGameStatus());
@@ -137,17 +162,20 @@ public class CheckersGameWindow extends JFrame {
         whitePiecesLabel.setText(String.format("White: %d pieces (%d kings)", whitePieces, whiteKings));
         blackPiecesLabel.setText(String.format("Black: %d pieces (%d kings)", blackPieces, blackKings));
         
-        // Update undo button
+        // Update undo and redo buttons
         undoButton.setEnabled(gameController.canUndo());
+        redoButton.setEnabled(gameController.canRedo());
         
         // Update board display
         boardPanel.updateDisplay();
         
         // Check for game over
         if (gameController.getGameState() == GameController.GameState.GAME_OVER) {
-            String winner = gameController.getWinner() == Piece.Color.WHITE ? "White" : "Black";
+            Piece.Color winner = gameController.getWinner();
+            String result = winner == null ? "The game is a draw!"
+                : (winner == Piece.Color.WHITE ? "White" : "Black") + " wins the game!";
             JOptionPane.showMessageDialog(this, 
-                winner + " wins the game!", 
+                result, 
                 "Game Over", 
                 JOptionPane.INFORMATION_MESSAGE);
         }